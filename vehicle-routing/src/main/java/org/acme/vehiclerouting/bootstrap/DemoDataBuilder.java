@@ -18,12 +18,32 @@ import org.acme.vehiclerouting.domain.geo.EuclideanDistanceCalculator;
 
 public class DemoDataBuilder {
 
+    // the demo problem, see demo()
+    public static final double DEMO_SOUTH_WEST_LATITUDE = 49.43069;
+    public static final double DEMO_SOUTH_WEST_LONGITUDE = 11.03332;
+    public static final double DEMO_NORTH_EAST_LATITUDE = 49.49069;
+    public static final double DEMO_NORTH_EAST_LONGITUDE = 11.13332;
+    public static final int DEMO_CUSTOMER_COUNT = 77;
+    public static final int DEMO_VEHICLE_COUNT = 50;
+    public static final int DEMO_DEPOT_COUNT = 1;
+    public static final int DEMO_VEHICLE_CAPACITY = 25;
+    public static final int DEMO_VEHICLE_FIX_COST = 10000;
+    public static final int DEMO_MIN_DEMAND = 1;
+    public static final int DEMO_MAX_DEMAND = 5;
+    public static final int DEMO_MIN_SERVICE_TIME = 50;
+    public static final int DEMO_MAX_SERVICE_TIME = 500;
+    public static final int DEMO_MIN_SERVICE_WINDOW = 5000;
+    public static final int DEMO_MAX_SERVICE_WINDOW = 40000;
+    // of the initial population of the demo problem
+    public static final int DEMO_POPULATION_SIZE = 100;
+    public static final long DEMO_SEED = 42L;
+
     private static final AtomicLong depotSequence = new AtomicLong();
     private static final AtomicLong customerSequence = new AtomicLong();
     private static final AtomicLong vehicleSequence = new AtomicLong();
     private static final AtomicLong locationSequence = new AtomicLong();
 
-    private final DistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+    private DistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
 
     private Location southWestCorner;
     private Location northEastCorner;
@@ -46,6 +66,31 @@ public class DemoDataBuilder {
         return new DemoDataBuilder();
     }
 
+    /**
+     * @return a builder preset with the demo problem, each value can still be changed
+     */
+    public static DemoDataBuilder demo() {
+        return builder()
+                .setMinDemand(DEMO_MIN_DEMAND)
+                .setMaxDemand(DEMO_MAX_DEMAND)
+                .setMinServiceTime(DEMO_MIN_SERVICE_TIME)
+                .setMaxServiceTime(DEMO_MAX_SERVICE_TIME)
+                .setMinServiceWindow(DEMO_MIN_SERVICE_WINDOW)
+                .setMaxServiceWindow(DEMO_MAX_SERVICE_WINDOW)
+                .setVehicleCapacity(DEMO_VEHICLE_CAPACITY)
+                .setCustomerCount(DEMO_CUSTOMER_COUNT)
+                .setVehicleCount(DEMO_VEHICLE_COUNT)
+                .setDepotCount(DEMO_DEPOT_COUNT)
+                .setVehicleFixCost(DEMO_VEHICLE_FIX_COST)
+                .setSouthWestCorner(new Location(0L, DEMO_SOUTH_WEST_LATITUDE, DEMO_SOUTH_WEST_LONGITUDE))
+                .setNorthEastCorner(new Location(0L, DEMO_NORTH_EAST_LATITUDE, DEMO_NORTH_EAST_LONGITUDE));
+    }
+
+    public DemoDataBuilder setDistanceCalculator(DistanceCalculator distanceCalculator) {
+        this.distanceCalculator = distanceCalculator;
+        return this;
+    }
+
     public DemoDataBuilder setSouthWestCorner(Location southWestCorner) {
         this.southWestCorner = southWestCorner;
         return this;
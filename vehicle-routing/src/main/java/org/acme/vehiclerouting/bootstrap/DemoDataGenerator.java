@@ -4,8 +4,8 @@ import java.util.List;
 
 import org.acme.vehiclerouting.domain.Customer;
 import org.acme.vehiclerouting.domain.Depot;
-import org.acme.vehiclerouting.domain.Location;
 import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.acme.vehiclerouting.persistence.VehicleRoutingProblemsRepository;
 import org.acme.vehiclerouting.persistence.VehicleRoutingSolutionsRepository;
 
 import io.quarkus.runtime.StartupEvent;
@@ -15,28 +15,14 @@ import jakarta.enterprise.event.Observes;
 @ApplicationScoped
 public class DemoDataGenerator {
 
-    private final VehicleRoutingSolutionsRepository repository;
+    private final VehicleRoutingProblemsRepository problems;
 
-    public DemoDataGenerator(VehicleRoutingSolutionsRepository repository) {
-        this.repository = repository;
+    public DemoDataGenerator(VehicleRoutingProblemsRepository problems) {
+        this.problems = problems;
     }
 
     public void generateDemoData(@Observes StartupEvent startupEvent) {
-        VehicleRoutingSolution problem = DemoDataBuilder.builder()
-                .setMinDemand(1)
-                .setMaxDemand(5)
-                .setMinServiceTime(50)
-                .setMaxServiceTime(500)
-                .setMinServiceWindow(5000)
-                .setMaxServiceWindow(40000)
-                .setVehicleCapacity(25)
-                .setCustomerCount(77)
-                .setVehicleCount(50)
-                .setDepotCount(1)
-                .setVehicleFixCost(10000)
-                .setSouthWestCorner(new Location(0L, 49.43069, 11.03332))
-                .setNorthEastCorner(new Location(0L, 49.49069, 11.13332))
-                .build();
+        VehicleRoutingSolution problem = DemoDataBuilder.demo().build();
         
         // Depot d = problem.getDepotList().get(0);
         // List<Customer> customers = problem.getCustomerList();
@@ -48,7 +34,9 @@ public class DemoDataGenerator {
         // }
         // customers.forEach(c-> System.err.println("ID: " + c.getId() + ", Demand: "+ c.getDemand()+", Sevice Time: "+c.getServiceTime()+ ", Service Window: " + c.getBeginServiceWindow()+"/"+c.getEndServiceWindow()));
 
+        VehicleRoutingSolutionsRepository repository = problems.create(VehicleRoutingProblemsRepository.DEMO_PROBLEM_ID).orElseThrow();
         repository.addAll(SequentialInsertion.solve(problem, 1, false));
-        repository.addAll(SequentialInsertion.solve(problem, 99, true));
+        repository.addAll(SequentialInsertion.solveParallel(problem, DemoDataBuilder.DEMO_POPULATION_SIZE - 1,
+                DemoDataBuilder.DEMO_SEED));
     }
 }
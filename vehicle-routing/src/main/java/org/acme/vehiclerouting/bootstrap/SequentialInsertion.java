@@ -9,9 +9,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.PrimitiveIterator.OfInt;
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.RouteSlack;
+import org.acme.vehiclerouting.domain.TimeWindowCompatibility;
 import org.acme.vehiclerouting.domain.Vehicle;
 import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
 
@@ -22,6 +26,17 @@ public class SequentialInsertion {
     private static Random rand = new Random(42);
     private static OfInt randInt = rand.ints(1, 100).iterator();
     private static final int ACCEPTANCE_THRESHOLD = 10;
+    private static final RandomSource SHARED_RANDOM = new RandomSource() {
+        @Override
+        public double nextDouble() {
+            return rand.nextDouble();
+        }
+
+        @Override
+        public int nextAcceptance() {
+            return randInt.nextInt();
+        }
+    };
 
     public static VehicleRoutingSolution solve(VehicleRoutingSolution solution) {
         List<VehicleRoutingSolution> solutions = solve(solution, 1);
@@ -36,34 +51,66 @@ public class SequentialInsertion {
         if (solution == null)
             return Collections.emptyList();
 
-        List<Customer> customerList = solution.getCustomerList();
+        List<Customer> sortedCustomers = sortCustomers(solution);
 
+        List<VehicleRoutingSolution> initalPopulation = new ArrayList<>();
+
+        for (int i = 1; i <= numberSolutions; i++) {
+            initalPopulation.add(buildSolution(solution, sortedCustomers, i, randomize ? SHARED_RANDOM : null));
+        }
+
+        return initalPopulation;
+    }
+
+    /**
+     * Build randomized solutions in parallel. Every solution draws from its own {@link SplittableRandom}, split in order from
+     * one generator seeded with {@code seed}, so the result only depends on the seed and not on the number of threads.
+     */
+    public static List<VehicleRoutingSolution> solveParallel(VehicleRoutingSolution solution, int numberSolutions, long seed) {
+        if (solution == null)
+            return Collections.emptyList();
+
+        List<Customer> sortedCustomers = sortCustomers(solution);
+
+        SplittableRandom seedRandom = new SplittableRandom(seed);
+        List<SplittableRandom> randoms = IntStream.range(0, numberSolutions).mapToObj(i -> seedRandom.split()).collect(Collectors.toList());
+
+        return IntStream.range(0, numberSolutions).parallel()
+                .mapToObj(i -> buildSolution(solution, sortedCustomers, i + 1, new SplittableRandomSource(randoms.get(i))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return all customers, the ones violating time window compatibility constraints first
+     */
+    private static List<Customer> sortCustomers(VehicleRoutingSolution solution) {
+        List<Customer> customerList = solution.getCustomerList();
+        TimeWindowCompatibility compatibilityMatrix = solution.getTimeWindowCompatibility();
         Map<Customer, Integer> twcMap = new HashMap<>();
         Map<Customer, Long> compatibilityMap = new HashMap<>();
 
-        for (Iterator<Customer> it1 = customerList.iterator(); it1.hasNext();) {
-            Customer a = it1.next();
+        for (int i = 0; i < customerList.size(); i++) {
+            Customer a = customerList.get(i);
             long compatibility = 0;
             int twc = 0; // violated constraints
-            long aa = calcTwc(a, a);
+            long aa = compatibilityMatrix.getTwc(i, i);
 
-            if (aa == Long.MIN_VALUE) {
+            if (aa == TimeWindowCompatibility.INCOMPATIBLE) {
                 twc++;
             } else {
                 compatibility += aa;
             }
 
-            for (Iterator<Customer> it2 = customerList.iterator(); it2.hasNext();) {
-                Customer b = it2.next();
-                if (a != b) {
-                    long ab = calcTwc(a, b);
-                    if (ab == Long.MIN_VALUE) {
+            for (int j = 0; j < customerList.size(); j++) {
+                if (i != j) {
+                    long ab = compatibilityMatrix.getTwc(i, j);
+                    if (ab == TimeWindowCompatibility.INCOMPATIBLE) {
                         twc++;
                     } else {
                         compatibility += ab;
                     }
-                    long ba = calcTwc(b, a);
-                    if (ba == Long.MIN_VALUE) {
+                    long ba = compatibilityMatrix.getTwc(j, i);
+                    if (ba == TimeWindowCompatibility.INCOMPATIBLE) {
                         twc++;
                     } else {
                         compatibility += ba;
@@ -83,96 +130,111 @@ public class SequentialInsertion {
         List<Customer> sortedCompatibility = compatibilityMap.entrySet().stream().filter(e -> !sortedTwc.contains(e.getKey()))
                 .sorted((i, j) -> Long.compare(i.getValue(), j.getValue())).map(Entry::getKey).collect(Collectors.toList());
 
-        List<VehicleRoutingSolution> initalPopulation = new ArrayList<>();
-
-        for (int i = 1; i <= numberSolutions; i++) {
-            // Start of new Solution
-            VehicleRoutingSolution newSolution = new VehicleRoutingSolution(solution.getName() + "_" + i, solution, false);
-
-            // list sorted by TWC and compatibility criterion
-            List<Customer> unroutedCustomers = new ArrayList<>(sortedTwc);
-            unroutedCustomers.addAll(sortedCompatibility);
-
-            Iterator<Vehicle> it = newSolution.getVehicleList().iterator();
-            while (!unroutedCustomers.isEmpty() && it.hasNext()) {
-                Vehicle vehicle = it.next();
-                int index = randomize ? (int) (Math.exp(rand.nextDouble() * Math.log(unroutedCustomers.size())) - 1.0) : 0;
-                // System.err.println("New Route with Customer: " + unroutedCustomers.get(index).getId());
-                vehicle.getCustomerList().add(unroutedCustomers.remove(index));
-                populateRoute(unroutedCustomers, vehicle, randomize);
-                // System.err.println("Finished route: " + vehicle.getCustomerList().stream().map(Customer::getId).collect(Collectors.toList()));
-            }
+        // list sorted by TWC and compatibility criterion
+        List<Customer> sortedCustomers = new ArrayList<>(sortedTwc);
+        sortedCustomers.addAll(sortedCompatibility);
+        return sortedCustomers;
+    }
 
-            initalPopulation.add(newSolution);
+    private static VehicleRoutingSolution buildSolution(VehicleRoutingSolution solution, List<Customer> sortedCustomers, int number,
+            RandomSource random) {
+        // Start of new Solution
+        VehicleRoutingSolution newSolution = new VehicleRoutingSolution(solution.getName() + "_" + number, solution, false);
+
+        List<Customer> unroutedCustomers = new ArrayList<>(sortedCustomers);
+
+        Iterator<Vehicle> it = newSolution.getVehicleList().iterator();
+        while (!unroutedCustomers.isEmpty() && it.hasNext()) {
+            Vehicle vehicle = it.next();
+            int index = random != null ? (int) (Math.exp(random.nextDouble() * Math.log(unroutedCustomers.size())) - 1.0) : 0;
+            // System.err.println("New Route with Customer: " + unroutedCustomers.get(index).getId());
+            vehicle.addCustomer(unroutedCustomers.remove(index));
+            populateRoute(unroutedCustomers, vehicle, newSolution.getTimeWindowCompatibility(), random);
+            // System.err.println("Finished route: " + vehicle.getCustomerList().stream().map(Customer::getId).collect(Collectors.toList()));
         }
 
-        return initalPopulation;
+        return newSolution;
     }
 
-    private static long calcTwc(Customer c1, Customer c2) {
-        long deltaTime = c1.getServiceTime() + c1.getLocation().getDistanceTo(c2.getLocation());
-        long earliestArrival = c1.getBeginServiceWindow() + deltaTime;
-        long latestArrival = c1.getEndServiceWindow() + deltaTime;
-
-        if (earliestArrival < c2.getEndServiceWindow()) {
-            return Math.min(latestArrival, c2.getEndServiceWindow()) - Math.max(earliestArrival, c2.getBeginServiceWindow());
-        } else {
-            return Long.MIN_VALUE;
-        }
+    /**
+     * Extend the route of the vehicle by the cheapest feasible insertion until no unrouted customer fits anymore.
+     * Every insertion position is checked and costed in constant time with the {@link RouteSlack} of the current route.
+     */
+    public static void populateRoute(List<Customer> unroutedCustomers, Vehicle vehicle, boolean randomize) {
+        populateRoute(unroutedCustomers, vehicle, null, randomize ? SHARED_RANDOM : null);
     }
 
-    public static void populateRoute(List<Customer> unroutedCustomers, Vehicle vehicle, boolean randomize) {
+    /**
+     * @param compatibility null to check every insertion on the time line only
+     */
+    private static void populateRoute(List<Customer> unroutedCustomers, Vehicle vehicle, TimeWindowCompatibility compatibility,
+            RandomSource random) {
         List<Customer> feasibleCustomers = unroutedCustomers.stream().filter(c -> c.getDemand() <= (vehicle.getCapacity() - vehicle.getTotalDemand()))
                 .collect(Collectors.toList());
 
         while (!feasibleCustomers.isEmpty()) {
-            long currentDistance = vehicle.getTotalDistanceMeters();
-            List<Customer> currentSequence = List.copyOf(vehicle.getCustomerList());
+            RouteSlack routeSlack = new RouteSlack(vehicle, compatibility);
 
             long bestDeltaDistance = Long.MAX_VALUE;
             Customer bestCustomer = null;
-            List<Customer> bestSequence = null;
-
-            for (Iterator<Customer> it = feasibleCustomers.iterator(); it.hasNext();) {
-                Customer customer = it.next();
-
-                vehicle.getCustomerList().clear();
-                vehicle.getCustomerList().add(customer);
-                vehicle.getCustomerList().addAll(currentSequence);
-
-                long deltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-
-                if (!vehicle.isServiceTimeViolated() && deltaDistance < bestDeltaDistance && (!randomize || randInt.nextInt() > ACCEPTANCE_THRESHOLD)) {
-                    bestDeltaDistance = deltaDistance;
-                    bestCustomer = customer;
-                    bestSequence = List.copyOf(vehicle.getCustomerList());
-                }
-
-                for (int i = 0; i < vehicle.getCustomerList().size() - 1; i++) {
-                    Collections.swap(vehicle.getCustomerList(), i, i + 1);
-                    deltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-                    if (!vehicle.isServiceTimeViolated() && deltaDistance < bestDeltaDistance && (!randomize || randInt.nextInt() > ACCEPTANCE_THRESHOLD)) {
-                        bestDeltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-                        bestCustomer = customer;
-                        bestSequence = List.copyOf(vehicle.getCustomerList());
+            int bestPosition = -1;
+
+            for (Customer customer : feasibleCustomers) {
+                int customerIndex = routeSlack.indexOf(customer);
+                for (int position = 0; position <= routeSlack.size(); position++) {
+                    if (routeSlack.isFeasibleInsertion(customer, customerIndex, position)) {
+                        long deltaDistance = routeSlack.getInsertionDistance(customer, position);
+                        if (deltaDistance < bestDeltaDistance && (random == null || random.nextAcceptance() > ACCEPTANCE_THRESHOLD)) {
+                            bestDeltaDistance = deltaDistance;
+                            bestCustomer = customer;
+                            bestPosition = position;
+                        }
                     }
                 }
             }
 
             if (bestCustomer == null) {
-                vehicle.getCustomerList().clear();
-                vehicle.getCustomerList().addAll(currentSequence);
                 // route could not be extended
                 return;
             }
-            // System.err.println("Enlarge Route with Customer: " + bestCustomer.getId());
 
             unroutedCustomers.remove(bestCustomer);
-            vehicle.getCustomerList().clear();
-            vehicle.getCustomerList().addAll(bestSequence);
+            vehicle.addCustomer(bestPosition, bestCustomer);
             feasibleCustomers = unroutedCustomers.stream().filter(c -> c.getDemand() <= (vehicle.getCapacity() - vehicle.getTotalDemand()))
                     .collect(Collectors.toList());
         }
     }
 
+    /**
+     * Random decisions of a randomized construction.
+     */
+    private interface RandomSource {
+
+        double nextDouble();
+
+        /**
+         * @return uniformly distributed between 1 (inclusive) and 100 (exclusive)
+         */
+        int nextAcceptance();
+    }
+
+    private static class SplittableRandomSource implements RandomSource {
+
+        private final SplittableRandom random;
+
+        SplittableRandomSource(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public double nextDouble() {
+            return random.nextDouble();
+        }
+
+        @Override
+        public int nextAcceptance() {
+            return random.nextInt(1, 100);
+        }
+    }
+
 }
@@ -86,6 +86,26 @@ public class Customer {
     // Complex methods
     // ************************************************************************
 
+    /**
+     * Equality by id lets routes and arcs of different solutions of the same problem be compared, also if they do not share
+     * the customer instances.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return id == ((Customer) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
     @Override
     public String toString() {
         return "Customer{" +
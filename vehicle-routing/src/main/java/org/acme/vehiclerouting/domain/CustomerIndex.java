@@ -0,0 +1,44 @@
+package org.acme.vehiclerouting.domain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Position of every customer in the customer list of one problem, computed once and shared by all solutions of the problem.
+ * Unlike {@link TimeWindowCompatibility} it grows linearly with the number of customers.
+ */
+public class CustomerIndex {
+
+    private final Map<Customer, Integer> indexMap;
+    private final int size;
+
+    private CustomerIndex(Map<Customer, Integer> indexMap, int size) {
+        this.indexMap = indexMap;
+        this.size = size;
+    }
+
+    public static CustomerIndex of(List<Customer> customers) {
+        int size = customers.size();
+        Map<Customer, Integer> indexMap = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexMap.put(customers.get(i), i);
+        }
+        return new CustomerIndex(indexMap, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Also finds copies of the customers, customers are equal by id.
+     *
+     * @param customer never null
+     * @return -1 if the customer is not part of the problem
+     */
+    public int indexOf(Customer customer) {
+        Integer index = indexMap.get(customer);
+        return index == null ? -1 : index;
+    }
+}
@@ -1,18 +1,19 @@
 package org.acme.vehiclerouting.domain;
 
-import java.util.Map;
+import org.acme.vehiclerouting.domain.geo.DistanceMatrix;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonFormat(shape = JsonFormat.Shape.ARRAY)
-@JsonIgnoreProperties({ "id" })
+@JsonIgnoreProperties({ "id", "index" })
 public class Location {
 
     private final long id;
     private final double latitude;
     private final double longitude;
-    private Map<Location, Long> distanceMap;
+    private int index = -1;
+    private DistanceMatrix distanceMatrix;
 
     public Location(long id, double latitude, double longitude) {
         this.id = id;
@@ -33,12 +34,25 @@ public class Location {
     }
 
     /**
-     * Set the distance map. Distances are in meters.
+     * Position of this location in the {@link DistanceMatrix} of its problem.
      *
-     * @param distanceMap a map containing distances from here to other locations
+     * @return compact index, -1 if not assigned yet
      */
-    public void setDistanceMap(Map<Location, Long> distanceMap) {
-        this.distanceMap = distanceMap;
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Set the distance matrix. Distances are in meters.
+     *
+     * @param distanceMatrix a matrix containing distances between all locations of the problem
+     */
+    public void setDistanceMatrix(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
     }
 
     /**
@@ -48,7 +62,7 @@ public class Location {
      * @return distance in meters
      */
     public long getDistanceTo(Location location) {
-        return distanceMap.get(location);
+        return distanceMatrix.getDistance(index, location.index);
     }
 
     // ************************************************************************
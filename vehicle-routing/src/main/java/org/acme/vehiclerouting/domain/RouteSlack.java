@@ -0,0 +1,135 @@
+package org.acme.vehiclerouting.domain;
+
+import java.util.List;
+
+/**
+ * Forward departure times and backward latest arrival times of a route, same time model as {@link Vehicle#getTotalTime()}.
+ * Position {@code p} is the gap in front of the customer at index {@code p}; position {@code size()} is the gap before the
+ * return to the depot.
+ */
+public class RouteSlack {
+
+    private final Location depotLocation;
+    private final List<Customer> customers;
+    private final TimeWindowCompatibility compatibility;
+    // index of each customer in the compatibility, -1 without one
+    private final int[] customerIndices;
+    // departure from the depot or customer in front of the position
+    private final long[] departureTimes;
+    // whether no customer in front of the position arrives after its end of service window
+    private final boolean[] feasiblePrefix;
+    // latest arrival at the customer at the index that keeps it and all following customers in their service windows
+    private final long[] latestArrivalTimes;
+
+    public RouteSlack(Vehicle vehicle) {
+        this(vehicle, null);
+    }
+
+    public RouteSlack(Vehicle vehicle, TimeWindowCompatibility compatibility) {
+        depotLocation = vehicle.getDepot().getLocation();
+        customers = List.copyOf(vehicle.getCustomerList());
+        this.compatibility = compatibility;
+        int size = customers.size();
+        customerIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            customerIndices[i] = indexOf(customers.get(i));
+        }
+        departureTimes = new long[size + 1];
+        feasiblePrefix = new boolean[size + 1];
+        latestArrivalTimes = new long[size + 1];
+
+        long departureTime = 0;
+        boolean feasible = true;
+        Location previousLocation = depotLocation;
+        for (int i = 0; i < size; i++) {
+            departureTimes[i] = departureTime;
+            feasiblePrefix[i] = feasible;
+            Customer customer = customers.get(i);
+            long arrivalTime = departureTime + previousLocation.getDistanceTo(customer.getLocation());
+            feasible &= arrivalTime <= customer.getEndServiceWindow();
+            departureTime = departureTime(customer, arrivalTime);
+            previousLocation = customer.getLocation();
+        }
+        departureTimes[size] = departureTime;
+        feasiblePrefix[size] = feasible;
+
+        // the return to the depot has no service window
+        latestArrivalTimes[size] = Long.MAX_VALUE;
+        for (int i = size - 1; i >= 0; i--) {
+            Customer customer = customers.get(i);
+            long latestArrivalTime = customer.getEndServiceWindow();
+            if (i + 1 < size) {
+                long latestDepartureTime = latestArrivalTimes[i + 1] - customer.getLocation().getDistanceTo(customers.get(i + 1).getLocation());
+                latestArrivalTime = Math.min(latestArrivalTime, latestArrivalTime(customer, latestDepartureTime));
+            }
+            latestArrivalTimes[i] = latestArrivalTime;
+        }
+    }
+
+    public int size() {
+        return customers.size();
+    }
+
+    public int indexOf(Customer customer) {
+        return compatibility == null ? -1 : compatibility.indexOf(customer);
+    }
+
+    public boolean isFeasibleInsertion(Customer customer, int position) {
+        return isFeasibleInsertion(customer, indexOf(customer), position);
+    }
+
+    /**
+     * @param customerIndex {@link #indexOf(Customer)} of the customer
+     */
+    public boolean isFeasibleInsertion(Customer customer, int customerIndex, int position) {
+        if (!feasiblePrefix[position]) {
+            return false;
+        }
+        if (compatibility != null && customerIndex >= 0) {
+            int previousIndex = position == 0 ? -1 : customerIndices[position - 1];
+            int nextIndex = position == customers.size() ? -1 : customerIndices[position];
+            if (!compatibility.canFollow(previousIndex, customerIndex) || !compatibility.canFollow(customerIndex, nextIndex)) {
+                return false;
+            }
+        }
+        long arrivalTime = departureTimes[position] + previousLocation(position).getDistanceTo(customer.getLocation());
+        if (arrivalTime > customer.getEndServiceWindow()) {
+            return false;
+        }
+        if (position == customers.size()) {
+            return true;
+        }
+        long nextArrivalTime = departureTime(customer, arrivalTime) + customer.getLocation().getDistanceTo(customers.get(position).getLocation());
+        return nextArrivalTime <= latestArrivalTimes[position];
+    }
+
+    public long getInsertionDistance(Customer customer, int position) {
+        Location previousLocation = previousLocation(position);
+        Location nextLocation = position == customers.size() ? depotLocation : customers.get(position).getLocation();
+        return previousLocation.getDistanceTo(customer.getLocation()) + customer.getLocation().getDistanceTo(nextLocation)
+                - previousLocation.getDistanceTo(nextLocation);
+    }
+
+    private Location previousLocation(int position) {
+        return position == 0 ? depotLocation : customers.get(position - 1).getLocation();
+    }
+
+    private static long departureTime(Customer customer, long arrivalTime) {
+        return arrivalTime + Math.max(arrivalTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
+    }
+
+    /**
+     * Inverse of {@link #departureTime(Customer, long)}, which is strictly increasing in the arrival time.
+     *
+     * @return the latest arrival time that departs no later than the given time
+     */
+    private static long latestArrivalTime(Customer customer, long latestDepartureTime) {
+        long latestStartTime = latestDepartureTime - customer.getServiceTime();
+        long beforeBeginServiceWindow = latestStartTime - customer.getBeginServiceWindow();
+        if (beforeBeginServiceWindow <= customer.getBeginServiceWindow()) {
+            // waits for the begin of the service window
+            return beforeBeginServiceWindow;
+        }
+        return Math.floorDiv(latestStartTime, 2);
+    }
+}
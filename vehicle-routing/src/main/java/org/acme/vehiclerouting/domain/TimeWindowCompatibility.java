@@ -0,0 +1,132 @@
+package org.acme.vehiclerouting.domain;
+
+import java.util.List;
+
+/**
+ * Pairwise time window compatibility (TWC) of the customers of one problem, computed once and shared by all solutions of
+ * the problem.
+ * <p>
+ * Customers are addressed by their position in the customer list the instance was computed for, see {@link #indexOf(Customer)}.
+ * It holds a value for every pair of customers, so it is limited to {@link #MAX_SIZE} customers.
+ */
+public class TimeWindowCompatibility {
+
+    /**
+     * TWC value of a pair where the second customer cannot be served in its window after the first one started at the
+     * begin of its window.
+     */
+    public static final long INCOMPATIBLE = Long.MIN_VALUE;
+    /**
+     * Largest number of customers whose pairwise values fit into one array.
+     */
+    public static final int MAX_SIZE = (int) Math.sqrt(Integer.MAX_VALUE - 8);
+
+    private final CustomerIndex customerIndex;
+    private final int size;
+    private final long[] twcValues;
+    // bit (from * size + to) is set if "to" can never directly follow "from"
+    private final long[] neverFollows;
+
+    private TimeWindowCompatibility(CustomerIndex customerIndex, int size, long[] twcValues, long[] neverFollows) {
+        this.customerIndex = customerIndex;
+        this.size = size;
+        this.twcValues = twcValues;
+        this.neverFollows = neverFollows;
+    }
+
+    public static TimeWindowCompatibility of(List<Customer> customers) {
+        return of(customers, CustomerIndex.of(customers));
+    }
+
+    /**
+     * @param customerIndex of the customers
+     * @throws IllegalArgumentException if there are more than {@link #MAX_SIZE} customers
+     */
+    public static TimeWindowCompatibility of(List<Customer> customers, CustomerIndex customerIndex) {
+        int size = customers.size();
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("The time window compatibility of " + size + " customers exceeds the maximum of "
+                    + MAX_SIZE + " customers.");
+        }
+        long[] twcValues = new long[Math.toIntExact((long) size * size)];
+        long[] neverFollows = new long[Math.toIntExact(((long) size * size + Long.SIZE - 1) / Long.SIZE)];
+        for (int from = 0; from < size; from++) {
+            Customer a = customers.get(from);
+            // a is served no earlier than the begin of its window, so its earliest departure is this
+            long earliestDeparture = a.getBeginServiceWindow() + a.getServiceTime();
+            for (int to = 0; to < size; to++) {
+                Customer b = customers.get(to);
+                int bit = index(from, to, size);
+                twcValues[bit] = calculateTwc(a, b);
+                if (earliestDeparture + a.getLocation().getDistanceTo(b.getLocation()) > b.getEndServiceWindow()) {
+                    neverFollows[bit / Long.SIZE] |= 1L << bit;
+                }
+            }
+        }
+        return new TimeWindowCompatibility(customerIndex, size, twcValues, neverFollows);
+    }
+
+    // the size is at most MAX_SIZE, so the pair index fits into an int
+    private static int index(int from, int to, int size) {
+        return (int) ((long) from * size + to);
+    }
+
+    private static long calculateTwc(Customer c1, Customer c2) {
+        long deltaTime = c1.getServiceTime() + c1.getLocation().getDistanceTo(c2.getLocation());
+        long earliestArrival = c1.getBeginServiceWindow() + deltaTime;
+        long latestArrival = c1.getEndServiceWindow() + deltaTime;
+
+        if (earliestArrival < c2.getEndServiceWindow()) {
+            return Math.min(latestArrival, c2.getEndServiceWindow()) - Math.max(earliestArrival, c2.getBeginServiceWindow());
+        } else {
+            return INCOMPATIBLE;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Also finds copies of the customers, customers are equal by id.
+     *
+     * @param customer never null
+     * @return -1 if the customer is not part of the problem
+     */
+    public int indexOf(Customer customer) {
+        return customerIndex.indexOf(customer);
+    }
+
+    /**
+     * @return overlap of the time window of {@code to} with the window in which it can be reached from {@code from},
+     *         {@link #INCOMPATIBLE} if there is none
+     */
+    public long getTwc(int from, int to) {
+        return twcValues[index(from, to, size)];
+    }
+
+    /**
+     * A lower bound check: if this returns false, every route with {@code to} directly after {@code from} arrives at
+     * {@code to} after the end of its service window, no matter what comes before.
+     *
+     * @param from index of the first customer, -1 for a depot
+     * @param to index of the second customer, -1 for a depot
+     * @return false if {@code to} can never directly follow {@code from}
+     */
+    public boolean canFollow(int from, int to) {
+        if (from < 0 || to < 0) {
+            return true;
+        }
+        int bit = index(from, to, size);
+        return (neverFollows[bit / Long.SIZE] & (1L << bit)) == 0;
+    }
+
+    /**
+     * @param from null for a depot
+     * @param to null for a depot
+     * @see #canFollow(int, int)
+     */
+    public boolean canFollow(Customer from, Customer to) {
+        return canFollow(from == null ? -1 : indexOf(from), to == null ? -1 : indexOf(to));
+    }
+}
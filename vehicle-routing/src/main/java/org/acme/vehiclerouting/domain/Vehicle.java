@@ -1,9 +1,11 @@
 package org.acme.vehiclerouting.domain;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
@@ -17,9 +19,13 @@ public class Vehicle {
     private Depot depot;
     private int fixCost;
 
+    // always a TrackedCustomerList, also in planning clones, see VehicleRoutingSolutionCloner
     @PlanningListVariable
     private List<Customer> customerList;
 
+    // aggregates of customerList, valid as long as the list and its version did not change
+    private RouteStatistics statistics;
+
     public boolean isIdentical(Vehicle other) {
         if (this == other)
             return true;
@@ -29,6 +35,7 @@ public class Vehicle {
     }
 
     public Vehicle() {
+        this.customerList = new TrackedCustomerList(new ArrayList<>());
     }
 
     public Vehicle(Vehicle old, boolean keepCustomers) {
@@ -41,7 +48,7 @@ public class Vehicle {
         this.id = id;
         this.capacity = capacity;
         this.depot = depot;
-        this.customerList = new ArrayList<>();
+        this.customerList = new TrackedCustomerList(new ArrayList<>());
         this.fixCost = fixCost;
     }
 
@@ -59,6 +66,7 @@ public class Vehicle {
 
     public void setCapacity(int capacity) {
         this.capacity = capacity;
+        this.statistics = null;
     }
 
     public Depot getDepot() {
@@ -67,6 +75,7 @@ public class Vehicle {
 
     public void setDepot(Depot depot) {
         this.depot = depot;
+        this.statistics = null;
     }
 
     public int getNoCustomers() {
@@ -77,12 +86,46 @@ public class Vehicle {
         return customerList.stream().map(Customer::getId).collect(Collectors.toList());
     }
 
+    /**
+     * @return the live route; changes made through it are tracked like those of the mutation methods below
+     */
     public List<Customer> getCustomerList() {
         return customerList;
     }
 
     public void setCustomerList(List<Customer> customerList) {
-        this.customerList = customerList;
+        this.customerList = customerList instanceof TrackedCustomerList ? customerList
+                : new TrackedCustomerList(customerList == null ? new ArrayList<>() : customerList);
+        this.statistics = null;
+    }
+
+    public void addCustomer(Customer customer) {
+        trackedCustomerList().add(customer);
+    }
+
+    public void addCustomer(int index, Customer customer) {
+        trackedCustomerList().add(index, customer);
+    }
+
+    public boolean removeCustomer(Customer customer) {
+        return trackedCustomerList().remove(customer);
+    }
+
+    public void swapCustomers(int i, int j) {
+        Collections.swap(trackedCustomerList(), i, j);
+    }
+
+    /**
+     * Replace the whole route, invalidating the cached aggregates once.
+     *
+     * @param customers never null, visited in iteration order
+     */
+    public void replaceCustomers(Collection<Customer> customers) {
+        trackedCustomerList().replaceAll(customers);
+    }
+
+    public void clearCustomers() {
+        trackedCustomerList().clear();
     }
 
     public int getFixCost() {
@@ -119,101 +162,168 @@ public class Vehicle {
     }
 
     public int getTotalDemand() {
-        return customerList.stream().mapToInt(Customer::getDemand).sum();
+        return statistics().totalDemand;
     }
 
     public Customer getFirstDemandViolation() {
-        int totalDemand = 0;
-        for (Iterator<Customer> it = customerList.iterator(); it.hasNext();) {
-            Customer customer = it.next();
-            totalDemand += customer.getDemand();
-            if (totalDemand > capacity)
-                return customer;
-        }
-        return null;
+        return statistics().firstDemandViolation;
     }
 
     public long getTotalDistanceMeters() {
-        if (customerList.isEmpty()) {
-            return 0;
-        }
+        return statistics().totalDistanceMeters;
+    }
 
-        long totalDistance = 0;
-        Location previousLocation = depot.getLocation();
+    public int getNoServiceTimeViolations() {
+        return statistics().noServiceTimeViolations;
+    }
 
-        for (Customer customer : customerList) {
-            totalDistance += previousLocation.getDistanceTo(customer.getLocation());
-            previousLocation = customer.getLocation();
-        }
-        totalDistance += previousLocation.getDistanceTo(depot.getLocation());
+    public boolean isServiceTimeViolated() {
+        return statistics().firstServiceTimeViolation != null;
+    }
 
-        return totalDistance;
+    public Customer getFirstServiceTimeViolation() {
+        return statistics().firstServiceTimeViolation;
     }
 
-    public int getNoServiceTimeViolations() {
-        if (customerList.isEmpty()) {
-            return 0;
+    public long getTotalTime() {
+        return statistics().totalTime;
+    }
+
+    private TrackedCustomerList trackedCustomerList() {
+        return (TrackedCustomerList) customerList;
+    }
+
+    private RouteStatistics statistics() {
+        TrackedCustomerList tracked = trackedCustomerList();
+        RouteStatistics current = statistics;
+        if (current == null || current.customerList != tracked || current.version != tracked.version) {
+            current = new RouteStatistics(tracked, depot, capacity);
+            statistics = current;
         }
+        return current;
+    }
 
-        int noViolations = 0;
-        long currentTime = 0;
-        Location previousLocation = depot.getLocation();
+    /**
+     * Customer list that counts its modifications, so {@link RouteStatistics} can tell whether it is stale.
+     */
+    private static class TrackedCustomerList extends AbstractList<Customer> implements RandomAccess {
 
-        for (Customer customer : customerList) {
-            currentTime += previousLocation.getDistanceTo(customer.getLocation());
-            if (currentTime > customer.getEndServiceWindow()) {
-                noViolations++;
-            }
-            currentTime += Math.max(currentTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
-            previousLocation = customer.getLocation();
+        private final List<Customer> customers;
+        private int version;
+
+        TrackedCustomerList(List<Customer> customers) {
+            this.customers = customers;
         }
 
-        return noViolations;
-    }
+        @Override
+        public Customer get(int index) {
+            return customers.get(index);
+        }
 
-    public boolean isServiceTimeViolated() {
-        if (customerList.isEmpty()) {
-            return false;
+        @Override
+        public int size() {
+            return customers.size();
         }
 
-        return getFirstServiceTimeViolation() != null;
-    }
+        @Override
+        public Customer set(int index, Customer customer) {
+            Customer old = customers.set(index, customer);
+            version++;
+            return old;
+        }
 
-    public Customer getFirstServiceTimeViolation() {
-        if (customerList.isEmpty()) {
-            return null;
+        @Override
+        public void add(int index, Customer customer) {
+            customers.add(index, customer);
+            changed();
         }
 
-        long currentTime = 0;
-        Location previousLocation = depot.getLocation();
+        @Override
+        public Customer remove(int index) {
+            Customer old = customers.remove(index);
+            changed();
+            return old;
+        }
 
-        for (Customer customer : customerList) {
-            currentTime += previousLocation.getDistanceTo(customer.getLocation());
-            if (currentTime > customer.getEndServiceWindow()) {
-                return customer;
-            }
-            currentTime += Math.max(currentTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
-            previousLocation = customer.getLocation();
+        @Override
+        public boolean addAll(Collection<? extends Customer> newCustomers) {
+            boolean result = customers.addAll(newCustomers);
+            changed();
+            return result;
         }
 
-        return null;
-    }
+        @Override
+        public void clear() {
+            customers.clear();
+            changed();
+        }
 
-    public long getTotalTime() {
-        if (customerList.isEmpty()) {
-            return 0;
+        void replaceAll(Collection<Customer> newCustomers) {
+            customers.clear();
+            customers.addAll(newCustomers);
+            changed();
         }
 
-        long currentTime = 0;
-        Location previousLocation = depot.getLocation();
+        private void changed() {
+            version++;
+            modCount++;
+        }
+    }
 
-        for (Customer customer : customerList) {
-            currentTime += previousLocation.getDistanceTo(customer.getLocation());
-            currentTime += Math.max(currentTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
-            previousLocation = customer.getLocation();
+    /**
+     * Aggregates of one route, calculated in a single pass.
+     */
+    private static class RouteStatistics {
+
+        private final List<Customer> customerList;
+        private final int version;
+        private final int totalDemand;
+        private final Customer firstDemandViolation;
+        private final long totalDistanceMeters;
+        private final long totalTime;
+        private final int noServiceTimeViolations;
+        private final Customer firstServiceTimeViolation;
+
+        RouteStatistics(TrackedCustomerList customerList, Depot depot, int capacity) {
+            this.customerList = customerList;
+            this.version = customerList.version;
+
+            int demand = 0;
+            Customer demandViolation = null;
+            long distance = 0;
+            long currentTime = 0;
+            int violations = 0;
+            Customer serviceTimeViolation = null;
+            if (!customerList.isEmpty()) {
+                Location previousLocation = depot.getLocation();
+                for (Customer customer : customerList) {
+                    demand += customer.getDemand();
+                    if (demandViolation == null && demand > capacity) {
+                        demandViolation = customer;
+                    }
+                    long legDistance = previousLocation.getDistanceTo(customer.getLocation());
+                    distance += legDistance;
+                    currentTime += legDistance;
+                    if (currentTime > customer.getEndServiceWindow()) {
+                        violations++;
+                        if (serviceTimeViolation == null) {
+                            serviceTimeViolation = customer;
+                        }
+                    }
+                    currentTime += Math.max(currentTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
+                    previousLocation = customer.getLocation();
+                }
+                long returnDistance = previousLocation.getDistanceTo(depot.getLocation());
+                distance += returnDistance;
+                currentTime += returnDistance;
+            }
+            this.totalDemand = demand;
+            this.firstDemandViolation = demandViolation;
+            this.totalDistanceMeters = distance;
+            this.totalTime = currentTime;
+            this.noServiceTimeViolations = violations;
+            this.firstServiceTimeViolation = serviceTimeViolation;
         }
-        currentTime += previousLocation.getDistanceTo(depot.getLocation());
-        return currentTime;
     }
 
     @Override
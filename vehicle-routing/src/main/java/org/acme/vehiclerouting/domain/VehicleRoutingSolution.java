@@ -13,7 +13,9 @@ import org.optaplanner.core.api.domain.solution.ProblemFactCollectionProperty;
 import org.optaplanner.core.api.domain.valuerange.ValueRangeProvider;
 import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
 
-@PlanningSolution
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+@PlanningSolution(solutionCloner = VehicleRoutingSolutionCloner.class)
 public class VehicleRoutingSolution {
 
     private String name;
@@ -37,6 +39,10 @@ public class VehicleRoutingSolution {
     private Location southWestCorner;
     private Location northEastCorner;
 
+    // derived from the customer list on first use, shared with copies of this solution
+    private CustomerIndex customerIndex;
+    private TimeWindowCompatibility timeWindowCompatibility;
+
     public boolean isIdentical(VehicleRoutingSolution other) {
         if (this == other)
             return true;
@@ -74,6 +80,8 @@ public class VehicleRoutingSolution {
         this(name, old.locationList, old.depotList, old.vehicleList.stream().map(v -> new Vehicle(v, keepCustomers)).collect(Collectors.toList()),
                 old.customerList, old.southWestCorner, old.northEastCorner);
         this.score = old.score;
+        this.customerIndex = old.customerIndex;
+        this.timeWindowCompatibility = old.timeWindowCompatibility;
     }
 
     public VehicleRoutingSolution(String name, List<Location> locationList, List<Depot> depotList, List<Vehicle> vehicleList, List<Customer> customerList,
@@ -143,6 +151,8 @@ public class VehicleRoutingSolution {
 
     public void setCustomerList(List<Customer> customerList) {
         this.customerList = customerList;
+        this.customerIndex = null;
+        this.timeWindowCompatibility = null;
     }
 
     public HardSoftLongScore getScore() {
@@ -157,6 +167,38 @@ public class VehicleRoutingSolution {
     // Complex methods
     // ************************************************************************
 
+    /**
+     * Computed on first use; call it before copying the solution so that all copies share one instance.
+     *
+     * @return never null
+     */
+    @JsonIgnore
+    public CustomerIndex getCustomerIndex() {
+        if (customerIndex == null) {
+            customerIndex = CustomerIndex.of(customerList);
+        }
+        return customerIndex;
+    }
+
+    /**
+     * Computed on first use like {@link #getCustomerIndex()}, which it includes.
+     *
+     * @return never null
+     * @throws IllegalArgumentException if there are more than {@link TimeWindowCompatibility#MAX_SIZE} customers
+     */
+    @JsonIgnore
+    public TimeWindowCompatibility getTimeWindowCompatibility() {
+        if (timeWindowCompatibility == null) {
+            timeWindowCompatibility = TimeWindowCompatibility.of(customerList, getCustomerIndex());
+        }
+        return timeWindowCompatibility;
+    }
+
+    void shareDerivedData(VehicleRoutingSolution original) {
+        customerIndex = original.customerIndex;
+        timeWindowCompatibility = original.timeWindowCompatibility;
+    }
+
     public List<Location> getBounds() {
         return Arrays.asList(southWestCorner, northEastCorner);
     }
@@ -0,0 +1,33 @@
+package org.acme.vehiclerouting.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.api.domain.solution.cloner.SolutionCloner;
+
+/**
+ * Planning clones through the constructors of {@link Vehicle}, so every clone gets its tracked customer list; the generic
+ * cloner writes a plain list into the field. Only vehicles are cloned, customers, other problem facts, the
+ * {@link CustomerIndex} and the {@link TimeWindowCompatibility} are shared.
+ */
+public class VehicleRoutingSolutionCloner implements SolutionCloner<VehicleRoutingSolution> {
+
+    @Override
+    public VehicleRoutingSolution cloneSolution(VehicleRoutingSolution original) {
+        List<Vehicle> vehicleList = null;
+        if (original.getVehicleList() != null) {
+            vehicleList = new ArrayList<>(original.getVehicleList().size());
+            for (Vehicle vehicle : original.getVehicleList()) {
+                Vehicle clone = new Vehicle(vehicle.getId(), vehicle.getCapacity(), vehicle.getDepot(), vehicle.getFixCost());
+                clone.replaceCustomers(vehicle.getCustomerList());
+                vehicleList.add(clone);
+            }
+        }
+
+        VehicleRoutingSolution clone = new VehicleRoutingSolution(original.getName(), original.getLocationList(), original.getDepotList(),
+                vehicleList, original.getCustomerList(), original.getBounds().get(0), original.getBounds().get(1));
+        clone.setScore(original.getScore());
+        clone.shareDerivedData(original);
+        return clone;
+    }
+}
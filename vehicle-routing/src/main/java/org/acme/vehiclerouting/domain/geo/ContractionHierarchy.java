@@ -0,0 +1,492 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy over a directed graph with non-negative arc weights.
+ * <p>
+ * Preprocessing contracts the nodes one by one in order of their edge difference and adds shortcuts wherever a limited
+ * witness search cannot find a path around the contracted node. Afterwards a shortest path query only has to search
+ * upwards (towards higher ranked nodes) from both ends, which settles a tiny part of the graph.
+ * Many-to-many queries use the bucket approach: one backward search per target fills buckets on the settled nodes,
+ * one forward search per source scans them.
+ */
+public class ContractionHierarchy {
+
+    /**
+     * Distance reported for pairs without a connecting path. Small enough that sums of a few of them do not overflow.
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE / 16;
+
+    // witness searches are cut off early when only estimating the number of shortcuts
+    private static final int SIMULATION_SETTLED_LIMIT = 20;
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+
+    private final int nodeCount;
+    // upward graph in compressed row form: arcs to higher ranked nodes
+    private final int[] forwardStart;
+    private final int[] forwardTarget;
+    private final long[] forwardWeight;
+    // reversed arcs from higher ranked nodes, for searches towards a target
+    private final int[] backwardStart;
+    private final int[] backwardTarget;
+    private final long[] backwardWeight;
+
+    private final ThreadLocal<SearchSpace> forwardSearchSpace;
+    private final ThreadLocal<SearchSpace> backwardSearchSpace;
+
+    /**
+     * Preprocess the graph. Parallel arcs are reduced to the shortest one, loops are ignored.
+     *
+     * @param nodeCount number of nodes, nodes are numbered from zero
+     * @param arcFrom   never null, tail of each arc
+     * @param arcTo     never null, head of each arc
+     * @param arcWeight never null, non-negative weight of each arc
+     */
+    public ContractionHierarchy(int nodeCount, int[] arcFrom, int[] arcTo, long[] arcWeight) {
+        if (arcFrom.length != arcTo.length || arcFrom.length != arcWeight.length) {
+            throw new IllegalArgumentException("arcFrom, arcTo and arcWeight must have the same length.");
+        }
+        this.nodeCount = nodeCount;
+
+        Adjacency[] outArcs = new Adjacency[nodeCount];
+        Adjacency[] inArcs = new Adjacency[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            outArcs[v] = new Adjacency();
+            inArcs[v] = new Adjacency();
+        }
+        for (int i = 0; i < arcFrom.length; i++) {
+            if (arcWeight[i] < 0) {
+                throw new IllegalArgumentException("Arc weight (" + arcWeight[i] + ") must not be negative.");
+            }
+            if (arcFrom[i] != arcTo[i]) {
+                outArcs[arcFrom[i]].addOrDecrease(arcTo[i], arcWeight[i]);
+                inArcs[arcTo[i]].addOrDecrease(arcFrom[i], arcWeight[i]);
+            }
+        }
+
+        // the working graph only keeps arcs between nodes that are not contracted yet
+        Adjacency[] upwardOut = new Adjacency[nodeCount];
+        Adjacency[] upwardIn = new Adjacency[nodeCount];
+        int[] contractedNeighbours = new int[nodeCount];
+        int[] levels = new int[nodeCount];
+        int[] lastContractedNeighbour = new int[nodeCount];
+        Arrays.fill(lastContractedNeighbour, -1);
+        int[] queueVersions = new int[nodeCount];
+        SearchSpace witnessSpace = new SearchSpace(nodeCount);
+
+        // entries are (priority, node, version); entries with an outdated version are skipped
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int v = 0; v < nodeCount; v++) {
+            queue.add(new long[] { priority(v, outArcs, inArcs, contractedNeighbours, levels, witnessSpace), v, 0 });
+        }
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int v = (int) entry[1];
+            if (entry[2] != queueVersions[v]) {
+                continue;
+            }
+            // lazy update: contract only if the node is still the best choice with its current priority
+            long priority = priority(v, outArcs, inArcs, contractedNeighbours, levels, witnessSpace);
+            if (!queue.isEmpty() && priority > queue.peek()[0]) {
+                queue.add(new long[] { priority, v, ++queueVersions[v] });
+                continue;
+            }
+            contract(v, outArcs, inArcs, witnessSpace, WITNESS_SETTLED_LIMIT, false);
+
+            // all remaining neighbours are ranked higher than v
+            upwardOut[v] = outArcs[v];
+            upwardIn[v] = inArcs[v];
+            outArcs[v] = null;
+            inArcs[v] = null;
+            for (int i = 0; i < upwardOut[v].size; i++) {
+                inArcs[upwardOut[v].targets[i]].remove(v);
+            }
+            for (int i = 0; i < upwardIn[v].size; i++) {
+                outArcs[upwardIn[v].targets[i]].remove(v);
+            }
+            for (Adjacency upward : new Adjacency[] { upwardOut[v], upwardIn[v] }) {
+                for (int i = 0; i < upward.size; i++) {
+                    int neighbour = upward.targets[i];
+                    if (lastContractedNeighbour[neighbour] == v) {
+                        // both an in and out neighbour
+                        continue;
+                    }
+                    lastContractedNeighbour[neighbour] = v;
+                    contractedNeighbours[neighbour]++;
+                    levels[neighbour] = Math.max(levels[neighbour], levels[v] + 1);
+                    queue.add(new long[] { priority(neighbour, outArcs, inArcs, contractedNeighbours, levels, witnessSpace), neighbour,
+                            ++queueVersions[neighbour] });
+                }
+            }
+        }
+
+        this.forwardStart = new int[nodeCount + 1];
+        this.backwardStart = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            forwardStart[v + 1] = forwardStart[v] + upwardOut[v].size;
+            backwardStart[v + 1] = backwardStart[v] + upwardIn[v].size;
+        }
+        this.forwardTarget = new int[forwardStart[nodeCount]];
+        this.forwardWeight = new long[forwardStart[nodeCount]];
+        this.backwardTarget = new int[backwardStart[nodeCount]];
+        this.backwardWeight = new long[backwardStart[nodeCount]];
+        for (int v = 0; v < nodeCount; v++) {
+            System.arraycopy(upwardOut[v].targets, 0, forwardTarget, forwardStart[v], upwardOut[v].size);
+            System.arraycopy(upwardOut[v].weights, 0, forwardWeight, forwardStart[v], upwardOut[v].size);
+            System.arraycopy(upwardIn[v].targets, 0, backwardTarget, backwardStart[v], upwardIn[v].size);
+            System.arraycopy(upwardIn[v].weights, 0, backwardWeight, backwardStart[v], upwardIn[v].size);
+        }
+        this.forwardSearchSpace = ThreadLocal.withInitial(() -> new SearchSpace(nodeCount));
+        this.backwardSearchSpace = ThreadLocal.withInitial(() -> new SearchSpace(nodeCount));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param source source node
+     * @param target target node
+     * @return length of the shortest path, {@link #UNREACHABLE} if there is none
+     */
+    public long distance(int source, int target) {
+        if (source == target) {
+            return 0L;
+        }
+        SearchSpace forward = forwardSearchSpace.get();
+        SearchSpace backward = backwardSearchSpace.get();
+        upwardSearch(source, forwardStart, forwardTarget, forwardWeight, forward);
+        upwardSearch(target, backwardStart, backwardTarget, backwardWeight, backward);
+        long best = UNREACHABLE;
+        for (int i = 0; i < forward.settledCount; i++) {
+            int node = forward.settled[i];
+            long viaNode = forward.distances[node] + backward.distances[node];
+            if (viaNode < best) {
+                best = viaNode;
+            }
+        }
+        forward.reset();
+        backward.reset();
+        return best;
+    }
+
+    /**
+     * Bucket-based many-to-many query.
+     *
+     * @param sources never null, source nodes
+     * @param targets never null, target nodes
+     * @return row by row {@code sources.length * targets.length} distances, {@link #UNREACHABLE} for pairs without a path
+     */
+    public long[] distances(int[] sources, int[] targets) {
+        // backward search from every target, remembering the search spaces
+        int[][] spaceNodes = new int[targets.length][];
+        long[][] spaceDistances = new long[targets.length][];
+        IntStream.range(0, targets.length).parallel().forEach(t -> {
+            SearchSpace backward = backwardSearchSpace.get();
+            upwardSearch(targets[t], backwardStart, backwardTarget, backwardWeight, backward);
+            spaceNodes[t] = Arrays.copyOf(backward.settled, backward.settledCount);
+            spaceDistances[t] = new long[backward.settledCount];
+            for (int i = 0; i < backward.settledCount; i++) {
+                spaceDistances[t][i] = backward.distances[backward.settled[i]];
+            }
+            backward.reset();
+        });
+
+        // buckets in compressed row form: (target, distance to target) per node
+        int[] bucketStart = new int[nodeCount + 1];
+        for (int[] nodes : spaceNodes) {
+            for (int node : nodes) {
+                bucketStart[node + 1]++;
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            bucketStart[v + 1] += bucketStart[v];
+        }
+        int[] bucketTarget = new int[bucketStart[nodeCount]];
+        long[] bucketDistance = new long[bucketStart[nodeCount]];
+        int[] bucketFill = Arrays.copyOf(bucketStart, nodeCount);
+        for (int t = 0; t < targets.length; t++) {
+            for (int i = 0; i < spaceNodes[t].length; i++) {
+                int position = bucketFill[spaceNodes[t][i]]++;
+                bucketTarget[position] = t;
+                bucketDistance[position] = spaceDistances[t][i];
+            }
+        }
+
+        long[] result = new long[sources.length * targets.length];
+        Arrays.fill(result, UNREACHABLE);
+        IntStream.range(0, sources.length).parallel().forEach(s -> {
+            SearchSpace forward = forwardSearchSpace.get();
+            upwardSearch(sources[s], forwardStart, forwardTarget, forwardWeight, forward);
+            int rowOffset = s * targets.length;
+            for (int i = 0; i < forward.settledCount; i++) {
+                int node = forward.settled[i];
+                long toNode = forward.distances[node];
+                for (int b = bucketStart[node]; b < bucketStart[node + 1]; b++) {
+                    long viaNode = toNode + bucketDistance[b];
+                    if (viaNode < result[rowOffset + bucketTarget[b]]) {
+                        result[rowOffset + bucketTarget[b]] = viaNode;
+                    }
+                }
+            }
+            forward.reset();
+        });
+        return result;
+    }
+
+    private static void upwardSearch(int start, int[] arcStart, int[] arcTarget, long[] arcWeight, SearchSpace space) {
+        space.relax(start, 0L);
+        while (!space.heap.isEmpty()) {
+            long distance = space.heap.peekKey();
+            int node = space.heap.poll();
+            if (distance > space.distances[node]) {
+                continue;
+            }
+            space.settle(node);
+            for (int i = arcStart[node]; i < arcStart[node + 1]; i++) {
+                space.relax(arcTarget[i], distance + arcWeight[i]);
+            }
+        }
+    }
+
+    private static long priority(int v, Adjacency[] outArcs, Adjacency[] inArcs, int[] contractedNeighbours, int[] levels,
+            SearchSpace witnessSpace) {
+        int shortcuts = contract(v, outArcs, inArcs, witnessSpace, SIMULATION_SETTLED_LIMIT, true);
+        int removedArcs = outArcs[v].size + inArcs[v].size;
+        return 2L * (shortcuts - removedArcs) + contractedNeighbours[v] + levels[v];
+    }
+
+    /**
+     * Add (or with {@code simulate} only count) the shortcuts needed to contract {@code v}.
+     */
+    private static int contract(int v, Adjacency[] outArcs, Adjacency[] inArcs, SearchSpace witnessSpace, int settledLimit, boolean simulate) {
+        int shortcuts = 0;
+        Adjacency in = inArcs[v];
+        Adjacency out = outArcs[v];
+        for (int i = 0; i < in.size; i++) {
+            int u = in.targets[i];
+            long maxViaV = -1;
+            for (int j = 0; j < out.size; j++) {
+                if (out.targets[j] != u) {
+                    maxViaV = Math.max(maxViaV, in.weights[i] + out.weights[j]);
+                }
+            }
+            if (maxViaV < 0) {
+                continue;
+            }
+            int targetCount = 0;
+            witnessSpace.stamp++;
+            for (int j = 0; j < out.size; j++) {
+                if (out.targets[j] != u) {
+                    witnessSpace.targetStamps[out.targets[j]] = witnessSpace.stamp;
+                    targetCount++;
+                }
+            }
+            witnessSearch(u, v, maxViaV, targetCount, settledLimit, outArcs, witnessSpace);
+            for (int j = 0; j < out.size; j++) {
+                int w = out.targets[j];
+                if (w == u) {
+                    continue;
+                }
+                long viaV = in.weights[i] + out.weights[j];
+                if (witnessSpace.distances[w] > viaV) {
+                    shortcuts++;
+                    if (!simulate) {
+                        outArcs[u].addOrDecrease(w, viaV);
+                        inArcs[w].addOrDecrease(u, viaV);
+                    }
+                }
+            }
+            witnessSpace.reset();
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Limited Dijkstra from {@code start} on the remaining graph without {@code excluded}.
+     * Stops once all nodes carrying the current target stamp are settled.
+     */
+    private static void witnessSearch(int start, int excluded, long maxDistance, int targetCount, int settledLimit, Adjacency[] outArcs,
+            SearchSpace space) {
+        space.relax(start, 0L);
+        int settledTargets = 0;
+        while (!space.heap.isEmpty() && space.settledCount < settledLimit && settledTargets < targetCount) {
+            long distance = space.heap.peekKey();
+            int node = space.heap.poll();
+            if (distance > space.distances[node]) {
+                continue;
+            }
+            if (distance > maxDistance) {
+                break;
+            }
+            space.settle(node);
+            if (space.targetStamps[node] == space.stamp) {
+                settledTargets++;
+            }
+            Adjacency out = outArcs[node];
+            for (int i = 0; i < out.size; i++) {
+                if (out.targets[i] != excluded) {
+                    space.relax(out.targets[i], distance + out.weights[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable arcs of one node, keeping only the shortest arc per neighbour.
+     */
+    private static class Adjacency {
+
+        private int[] targets = new int[4];
+        private long[] weights = new long[4];
+        private int size;
+
+        void addOrDecrease(int target, long weight) {
+            for (int i = 0; i < size; i++) {
+                if (targets[i] == target) {
+                    weights[i] = Math.min(weights[i], weight);
+                    return;
+                }
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int target) {
+            for (int i = 0; i < size; i++) {
+                if (targets[i] == target) {
+                    size--;
+                    targets[i] = targets[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tentative distances of one search, reset in O(touched nodes) so it can be reused.
+     */
+    private static class SearchSpace {
+
+        private final long[] distances;
+        private int[] touched = new int[64];
+        private int touchedCount;
+        private int[] settled = new int[64];
+        private int settledCount;
+        private final MinHeap heap = new MinHeap();
+        // marks the targets of a witness search
+        private final int[] targetStamps;
+        private int stamp;
+
+        SearchSpace(int nodeCount) {
+            distances = new long[nodeCount];
+            targetStamps = new int[nodeCount];
+            Arrays.fill(distances, UNREACHABLE);
+        }
+
+        void relax(int node, long distance) {
+            if (distance < distances[node]) {
+                if (distances[node] == UNREACHABLE) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = node;
+                }
+                distances[node] = distance;
+                heap.add(distance, node);
+            }
+        }
+
+        void settle(int node) {
+            if (settledCount == settled.length) {
+                settled = Arrays.copyOf(settled, settledCount * 2);
+            }
+            settled[settledCount++] = node;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                distances[touched[i]] = UNREACHABLE;
+            }
+            touchedCount = 0;
+            settledCount = 0;
+            heap.clear();
+        }
+    }
+
+    /**
+     * Binary min-heap of (key, node) pairs. Decrease-key is done by inserting again, stale entries are skipped by the caller.
+     */
+    private static class MinHeap {
+
+        private long[] keys = new long[64];
+        private int[] nodes = new int[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void add(long key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int position = size++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[position] = keys[parent];
+                nodes[position] = nodes[parent];
+                position = parent;
+            }
+            keys[position] = key;
+            nodes[position] = node;
+        }
+
+        int poll() {
+            int result = nodes[0];
+            size--;
+            long key = keys[size];
+            int node = nodes[size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[position] = keys[child];
+                nodes[position] = nodes[child];
+                position = child;
+            }
+            keys[position] = key;
+            nodes[position] = node;
+            return result;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
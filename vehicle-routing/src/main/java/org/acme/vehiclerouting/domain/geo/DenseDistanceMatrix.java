@@ -0,0 +1,127 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.acme.vehiclerouting.domain.Location;
+
+/**
+ * Full n x n distance matrix stored row by row in a single primitive array.
+ */
+public class DenseDistanceMatrix implements DistanceMatrix {
+
+    static final int TILE_SIZE = 128;
+
+    private final int size;
+    private final long[] distances;
+
+    public DenseDistanceMatrix(int size) {
+        this(size, new long[checkedLength(size)]);
+    }
+
+    public DenseDistanceMatrix(int size, long[] distances) {
+        if (distances.length != size * size) {
+            throw new IllegalArgumentException("distances length (" + distances.length + ") must be size (" + size + ") squared.");
+        }
+        this.size = size;
+        this.distances = distances;
+    }
+
+    /**
+     * Calculate the matrix for the given locations. The position in the list has to match {@link Location#getIndex()}.
+     * The matrix is split into square tiles which are filled in parallel on the common fork-join pool.
+     * If the calculator is {@link DistanceCalculator#isSymmetric() symmetric}, every pair is calculated only once.
+     *
+     * @param distanceCalculator never null
+     * @param locations          never null
+     * @return never null
+     */
+    public static DenseDistanceMatrix calculate(DistanceCalculator distanceCalculator, List<Location> locations) {
+        int size = locations.size();
+        DenseDistanceMatrix matrix = new DenseDistanceMatrix(size);
+        int tileCount = (size + TILE_SIZE - 1) / TILE_SIZE;
+        ForkJoinPool.commonPool().invoke(new TileTask(distanceCalculator, locations.toArray(new Location[0]), matrix.distances, size,
+                distanceCalculator.isSymmetric(), tileCount, 0, tileCount * tileCount));
+        return matrix;
+    }
+
+    /**
+     * Fills the tiles {@code [fromTile, toTile)}, numbered row by row, splitting the range until a single tile is left.
+     */
+    private static class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient DistanceCalculator distanceCalculator;
+        private final transient Location[] locations;
+        private final long[] distances;
+        private final int size;
+        private final boolean symmetric;
+        private final int tileCount;
+        private final int fromTile;
+        private final int toTile;
+
+        TileTask(DistanceCalculator distanceCalculator, Location[] locations, long[] distances, int size, boolean symmetric, int tileCount,
+                int fromTile, int toTile) {
+            this.distanceCalculator = distanceCalculator;
+            this.locations = locations;
+            this.distances = distances;
+            this.size = size;
+            this.symmetric = symmetric;
+            this.tileCount = tileCount;
+            this.fromTile = fromTile;
+            this.toTile = toTile;
+        }
+
+        @Override
+        protected void compute() {
+            if (toTile - fromTile > 1) {
+                int middle = (fromTile + toTile) >>> 1;
+                invokeAll(new TileTask(distanceCalculator, locations, distances, size, symmetric, tileCount, fromTile, middle),
+                        new TileTask(distanceCalculator, locations, distances, size, symmetric, tileCount, middle, toTile));
+                return;
+            }
+            int tileRow = fromTile / tileCount;
+            int tileColumn = fromTile % tileCount;
+            if (symmetric && tileColumn < tileRow) {
+                // filled by the mirrored tile
+                return;
+            }
+            int rowEnd = Math.min(size, (tileRow + 1) * TILE_SIZE);
+            int columnEnd = Math.min(size, (tileColumn + 1) * TILE_SIZE);
+            for (int i = tileRow * TILE_SIZE; i < rowEnd; i++) {
+                Location from = locations[i];
+                int columnStart = symmetric && tileRow == tileColumn ? i : tileColumn * TILE_SIZE;
+                distanceCalculator.calculateDistanceRow(from, locations, columnStart, columnEnd, distances, i * size + columnStart);
+                if (symmetric) {
+                    for (int j = columnStart; j < columnEnd; j++) {
+                        distances[j * size + i] = distances[i * size + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private static int checkedLength(int size) {
+        long length = (long) size * size;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A dense matrix for " + size + " locations does not fit into a single array.");
+        }
+        return (int) length;
+    }
+
+    @Override
+    public long getDistance(int fromIndex, int toIndex) {
+        return distances[fromIndex * size + toIndex];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void setDistance(int fromIndex, int toIndex, long distance) {
+        distances[fromIndex * size + toIndex] = distance;
+    }
+}
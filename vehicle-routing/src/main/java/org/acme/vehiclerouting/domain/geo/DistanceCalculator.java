@@ -1,6 +1,8 @@
 package org.acme.vehiclerouting.domain.geo;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -18,6 +20,52 @@ public interface DistanceCalculator {
      */
     long calculateDistance(Location from, Location to);
 
+    /**
+     * Calculate the distances from {@code from} to {@code toLocations[start]} ... {@code toLocations[end - 1]} in meters
+     * and store them in {@code distances}, starting at {@code offset}.
+     * Implementations can override this with a batch kernel that is cheaper than
+     * {@link #calculateDistance(Location, Location)} per pair.
+     *
+     * @param from        starting location
+     * @param toLocations never null, the same array instance is passed for every row of one matrix
+     * @param start       first target position, inclusive
+     * @param end         last target position, exclusive
+     * @param distances   never null, receives {@code end - start} distances
+     * @param offset      position in {@code distances} of the first distance
+     */
+    default void calculateDistanceRow(Location from, Location[] toLocations, int start, int end, long[] distances, int offset) {
+        for (int j = start; j < end; j++) {
+            distances[offset + j - start] = calculateDistance(from, toLocations[j]);
+        }
+    }
+
+    /**
+     * Whether the distance from {@code a} to {@code b} always equals the distance from {@code b} to {@code a}.
+     * Symmetric calculators only need to calculate half of a distance matrix.
+     *
+     * @return false by default
+     */
+    default boolean isSymmetric() {
+        return false;
+    }
+
+    /**
+     * Fingerprint of the configuration that determines the calculated distances besides the class, for example the road
+     * graph, so that stored distance matrices of a differently configured calculator are not reused.
+     *
+     * @return 0 by default, for calculators without such configuration
+     */
+    default long configurationFingerprint() {
+        return 0L;
+    }
+
+    /**
+     * @return fingerprint of the class and {@link #configurationFingerprint()} of the calculator
+     */
+    static long fingerprintOf(DistanceCalculator distanceCalculator) {
+        return 31L * distanceCalculator.getClass().getName().hashCode() + distanceCalculator.configurationFingerprint();
+    }
+
     /**
      * Bulk calculation of distance.
      * Typically much more scalable than {@link #calculateDistance(Location, Location)} iteratively.
@@ -39,12 +87,30 @@ public interface DistanceCalculator {
     }
 
     /**
-     * Calculate distance matrix for the given list of locations and assign distance maps accordingly.
+     * Calculate the distance matrix for the given locations.
+     * The position of each location in the list has to match its {@link Location#getIndex()}.
+     *
+     * @param locations never null
+     * @return never null
+     */
+    default DistanceMatrix calculateDistanceMatrix(List<Location> locations) {
+        return DenseDistanceMatrix.calculate(this, locations);
+    }
+
+    /**
+     * Assign a compact index to each of the given locations, calculate the distance matrix
+     * and assign it to the locations accordingly.
      *
-     * @param locationList
+     * @param locationList never null
+     * @return the matrix shared by all given locations
      */
-    default void initDistanceMaps(Collection<Location> locationList) {
-        Map<Location, Map<Location, Long>> distanceMatrix = calculateBulkDistance(locationList, locationList);
-        locationList.forEach(location -> location.setDistanceMap(distanceMatrix.get(location)));
+    default DistanceMatrix initDistanceMaps(Collection<Location> locationList) {
+        List<Location> locations = new ArrayList<>(locationList);
+        for (int i = 0; i < locations.size(); i++) {
+            locations.get(i).setIndex(i);
+        }
+        DistanceMatrix distanceMatrix = calculateDistanceMatrix(locations);
+        locations.forEach(location -> location.setDistanceMatrix(distanceMatrix));
+        return distanceMatrix;
     }
 }
@@ -0,0 +1,21 @@
+package org.acme.vehiclerouting.domain.geo;
+
+/**
+ * Distances between the locations of one problem, addressed by {@link org.acme.vehiclerouting.domain.Location#getIndex()}.
+ */
+public interface DistanceMatrix {
+
+    /**
+     * Distance between two locations in meters.
+     *
+     * @param fromIndex index of the starting location
+     * @param toIndex   index of the target location
+     * @return distance in meters
+     */
+    long getDistance(int fromIndex, int toIndex);
+
+    /**
+     * @return number of locations covered by this matrix
+     */
+    int size();
+}
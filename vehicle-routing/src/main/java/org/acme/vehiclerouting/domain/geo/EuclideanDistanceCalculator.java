@@ -20,4 +20,9 @@ public class EuclideanDistanceCalculator implements DistanceCalculator {
         double longitudeDiff = to.getLongitude() - from.getLongitude();
         return (long) ceil(sqrt(latitudeDiff * latitudeDiff + longitudeDiff * longitudeDiff) * METERS_PER_DEGREE);
     }
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
 }
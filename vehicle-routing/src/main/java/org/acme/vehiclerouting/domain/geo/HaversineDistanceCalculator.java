@@ -0,0 +1,105 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static java.lang.Math.asin;
+import static java.lang.Math.ceil;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
+
+import org.acme.vehiclerouting.domain.Location;
+
+/**
+ * Great-circle distance on a sphere with the mean earth radius.
+ * <p>
+ * The haversine term is evaluated through the chord length between the unit vectors of both locations,
+ * {@code sin²(θ/2) = |p - q|² / 4}, which turns the per-pair work into plain arithmetic.
+ * {@link #calculateDistanceRow(Location, Location[], int, int, long[], int)} keeps the unit vectors of all locations
+ * in a structure of arrays, so the chord loop runs over primitive arrays that the JIT can auto-vectorize.
+ */
+public class HaversineDistanceCalculator implements DistanceCalculator {
+
+    public static final double EARTH_RADIUS_IN_M = 6_371_000;
+    private static final double TWICE_EARTH_RADIUS_IN_M = 2 * EARTH_RADIUS_IN_M;
+
+    // unit vectors of the last location array passed to calculateDistanceRow
+    private volatile Coordinates coordinates;
+
+    @Override
+    public long calculateDistance(Location from, Location to) {
+        if (from.equals(to)) {
+            return 0L;
+        }
+        double[] p = unitVector(from);
+        double[] q = unitVector(to);
+        double dx = p[0] - q[0];
+        double dy = p[1] - q[1];
+        double dz = p[2] - q[2];
+        return toMeters(dx * dx + dy * dy + dz * dz);
+    }
+
+    @Override
+    public void calculateDistanceRow(Location from, Location[] toLocations, int start, int end, long[] distances, int offset) {
+        Coordinates c = coordinates;
+        if (c == null || c.locations != toLocations) {
+            c = new Coordinates(toLocations);
+            coordinates = c;
+        }
+        double[] p = unitVector(from);
+        double px = p[0];
+        double py = p[1];
+        double pz = p[2];
+        double[] x = c.x;
+        double[] y = c.y;
+        double[] z = c.z;
+        double[] squaredChords = new double[end - start];
+        // hot loop without calls or branches
+        for (int j = start; j < end; j++) {
+            double dx = px - x[j];
+            double dy = py - y[j];
+            double dz = pz - z[j];
+            squaredChords[j - start] = dx * dx + dy * dy + dz * dz;
+        }
+        for (int j = 0; j < squaredChords.length; j++) {
+            distances[offset + j] = toMeters(squaredChords[j]);
+        }
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    private static long toMeters(double squaredChord) {
+        // sin(θ/2) = chord / 2, clamped against rounding above 1 for antipodal points
+        return (long) ceil(TWICE_EARTH_RADIUS_IN_M * asin(Math.min(1.0, sqrt(squaredChord) / 2)));
+    }
+
+    private static double[] unitVector(Location location) {
+        double latitude = toRadians(location.getLatitude());
+        double longitude = toRadians(location.getLongitude());
+        double cosLatitude = cos(latitude);
+        return new double[] { cosLatitude * cos(longitude), cosLatitude * sin(longitude), sin(latitude) };
+    }
+
+    private static class Coordinates {
+
+        private final Location[] locations;
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+
+        Coordinates(Location[] locations) {
+            this.locations = locations;
+            this.x = new double[locations.length];
+            this.y = new double[locations.length];
+            this.z = new double[locations.length];
+            for (int i = 0; i < locations.length; i++) {
+                double[] unitVector = unitVector(locations[i]);
+                x[i] = unitVector[0];
+                y[i] = unitVector[1];
+                z[i] = unitVector[2];
+            }
+        }
+    }
+}
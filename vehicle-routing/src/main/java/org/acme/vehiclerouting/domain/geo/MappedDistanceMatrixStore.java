@@ -0,0 +1,192 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+
+/**
+ * Keeps the distance matrix in a flat binary file instead of on the heap.
+ * The file is calculated once through the wrapped {@link DistanceCalculator} and memory-mapped read-only afterwards,
+ * so later runs for the same locations reuse it and the OS page cache holds the hot rows.
+ * <p>
+ * File layout: a header (magic, version, size, fingerprint of calculator and locations) followed by
+ * {@code size * size} distances as 64-bit values, row by row.
+ */
+public class MappedDistanceMatrixStore implements DistanceCalculator {
+
+    private static final long MAGIC = 0x5653_5244_4953_544DL; // "VSRDISTM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int ROWS_PER_WRITE = 64;
+
+    private final Path file;
+    private final DistanceCalculator distanceCalculator;
+
+    public MappedDistanceMatrixStore(Path file, DistanceCalculator distanceCalculator) {
+        this.file = file;
+        this.distanceCalculator = distanceCalculator;
+    }
+
+    @Override
+    public long calculateDistance(Location from, Location to) {
+        return distanceCalculator.calculateDistance(from, to);
+    }
+
+    @Override
+    public void calculateDistanceRow(Location from, Location[] toLocations, int start, int end, long[] distances, int offset) {
+        distanceCalculator.calculateDistanceRow(from, toLocations, start, end, distances, offset);
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return distanceCalculator.isSymmetric();
+    }
+
+    @Override
+    public long configurationFingerprint() {
+        return DistanceCalculator.fingerprintOf(distanceCalculator);
+    }
+
+    /**
+     * Map the matrix file if it matches the given locations, otherwise (re)write it first.
+     *
+     * @param locations never null
+     * @return never null
+     */
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<Location> locations) {
+        long fingerprint = fingerprint(locations);
+        try {
+            if (!isReusable(locations.size(), fingerprint)) {
+                write(locations, fingerprint);
+            }
+            return map(locations.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not access distance matrix file (" + file + ").", e);
+        }
+    }
+
+    private long fingerprint(List<Location> locations) {
+        long hash = DistanceCalculator.fingerprintOf(distanceCalculator);
+        for (Location location : locations) {
+            hash = 31 * hash + Double.doubleToLongBits(location.getLatitude());
+            hash = 31 * hash + Double.doubleToLongBits(location.getLongitude());
+        }
+        return hash;
+    }
+
+    private boolean isReusable(int size, long fingerprint) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER_BYTES + (long) size * size * Long.BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the complete header
+            }
+            header.flip();
+            return header.remaining() == HEADER_BYTES && header.getLong() == MAGIC && header.getInt() == VERSION && header.getInt() == size
+                    && header.getLong() == fingerprint;
+        }
+    }
+
+    private void write(List<Location> locations, long fingerprint) throws IOException {
+        int size = locations.size();
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+                header.putLong(MAGIC).putInt(VERSION).putInt(size).putLong(fingerprint).flip();
+                writeFully(channel, header);
+
+                Location[] locationArray = locations.toArray(new Location[0]);
+                ByteBuffer rows = ByteBuffer.allocateDirect(ROWS_PER_WRITE * size * Long.BYTES).order(ByteOrder.nativeOrder());
+                for (int rowStart = 0; rowStart < size; rowStart += ROWS_PER_WRITE) {
+                    int rowEnd = Math.min(size, rowStart + ROWS_PER_WRITE);
+                    int firstRow = rowStart;
+                    IntStream.range(rowStart, rowEnd).parallel().forEach(i -> {
+                        long[] row = new long[size];
+                        distanceCalculator.calculateDistanceRow(locationArray[i], locationArray, 0, size, row, 0);
+                        int offset = (i - firstRow) * size * Long.BYTES;
+                        for (int j = 0; j < size; j++) {
+                            rows.putLong(offset + j * Long.BYTES, row[j]);
+                        }
+                    });
+                    rows.clear().limit((rowEnd - rowStart) * size * Long.BYTES);
+                    writeFully(channel, rows);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private MappedDistanceMatrix map(int size) throws IOException {
+        long rowBytes = Math.max(1L, (long) size * Long.BYTES);
+        int rowsPerChunk = (int) Math.max(1, Math.min(size, Integer.MAX_VALUE / rowBytes));
+        int chunkCount = size == 0 ? 0 : (size + rowsPerChunk - 1) / rowsPerChunk;
+        MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                long position = HEADER_BYTES + chunk * rowsPerChunk * rowBytes;
+                long length = Math.min(rowsPerChunk, size - chunk * rowsPerChunk) * rowBytes;
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                chunks[chunk].order(ByteOrder.nativeOrder());
+            }
+        }
+        return new MappedDistanceMatrix(size, rowsPerChunk, chunks);
+    }
+
+    /**
+     * Read-only view of a mapped matrix file. The mapping stays valid after the channel is closed.
+     */
+    private static class MappedDistanceMatrix implements DistanceMatrix {
+
+        private final int size;
+        private final int rowsPerChunk;
+        private final MappedByteBuffer[] chunks;
+
+        MappedDistanceMatrix(int size, int rowsPerChunk, MappedByteBuffer[] chunks) {
+            this.size = size;
+            this.rowsPerChunk = rowsPerChunk;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public long getDistance(int fromIndex, int toIndex) {
+            int offset = ((fromIndex % rowsPerChunk) * size + toIndex) * Long.BYTES;
+            return chunks[fromIndex / rowsPerChunk].getLong(offset);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+
+/**
+ * Sparse distance mode for very large problems: only the distances to the k nearest neighbours of each location are stored,
+ * which needs O(n * k) memory instead of O(n * n).
+ * Any other pair is calculated on demand through the wrapped {@link DistanceCalculator} and kept in a small bounded cache.
+ */
+public class NearestNeighbourDistanceCalculator implements DistanceCalculator {
+
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private final DistanceCalculator distanceCalculator;
+    private final int neighbourCount;
+    private final int cacheSize;
+
+    public NearestNeighbourDistanceCalculator(DistanceCalculator distanceCalculator, int neighbourCount) {
+        this(distanceCalculator, neighbourCount, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param distanceCalculator never null, used for the neighbour search and for all pairs outside of it
+     * @param neighbourCount     number of nearest neighbours stored per location, greater than zero
+     * @param cacheSize          number of cached on-demand distances, rounded up to a power of two
+     */
+    public NearestNeighbourDistanceCalculator(DistanceCalculator distanceCalculator, int neighbourCount, int cacheSize) {
+        if (neighbourCount < 1) {
+            throw new IllegalArgumentException("neighbourCount (" + neighbourCount + ") must be greater than zero.");
+        }
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize (" + cacheSize + ") must be greater than zero.");
+        }
+        this.distanceCalculator = distanceCalculator;
+        this.neighbourCount = neighbourCount;
+        int roundedCacheSize = Integer.highestOneBit(cacheSize);
+        this.cacheSize = roundedCacheSize < cacheSize ? roundedCacheSize << 1 : roundedCacheSize;
+    }
+
+    @Override
+    public long calculateDistance(Location from, Location to) {
+        return distanceCalculator.calculateDistance(from, to);
+    }
+
+    @Override
+    public void calculateDistanceRow(Location from, Location[] toLocations, int start, int end, long[] distances, int offset) {
+        distanceCalculator.calculateDistanceRow(from, toLocations, start, end, distances, offset);
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return distanceCalculator.isSymmetric();
+    }
+
+    @Override
+    public long configurationFingerprint() {
+        return 31L * DistanceCalculator.fingerprintOf(distanceCalculator) + neighbourCount;
+    }
+
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<Location> locations) {
+        Location[] locationArray = locations.toArray(new Location[0]);
+        int size = locationArray.length;
+        int k = Math.min(neighbourCount, size);
+        int[] neighbourIndices = new int[size * k];
+        long[] neighbourDistances = new long[size * k];
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            // max-heap of the k nearest candidates seen so far, ordered by distance
+            int[] heapIndices = new int[k];
+            long[] heapDistances = new long[k];
+            int heapSize = 0;
+            long[] row = new long[size];
+            distanceCalculator.calculateDistanceRow(locationArray[i], locationArray, 0, size, row, 0);
+            for (int j = 0; j < size; j++) {
+                long distance = row[j];
+                if (heapSize < k) {
+                    heapIndices[heapSize] = j;
+                    heapDistances[heapSize] = distance;
+                    siftUp(heapIndices, heapDistances, heapSize++);
+                } else if (distance < heapDistances[0]) {
+                    heapIndices[0] = j;
+                    heapDistances[0] = distance;
+                    siftDown(heapIndices, heapDistances, heapSize);
+                }
+            }
+            // store the row sorted by target index, so lookups are a binary search
+            for (int n = 1; n < k; n++) {
+                for (int m = n; m > 0 && heapIndices[m - 1] > heapIndices[m]; m--) {
+                    swap(heapIndices, heapDistances, m - 1, m);
+                }
+            }
+            System.arraycopy(heapIndices, 0, neighbourIndices, i * k, k);
+            System.arraycopy(heapDistances, 0, neighbourDistances, i * k, k);
+        });
+        return new SparseDistanceMatrix(distanceCalculator, locationArray, k, neighbourIndices, neighbourDistances, cacheSize);
+    }
+
+    private static void siftUp(int[] indices, long[] distances, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (distances[parent] >= distances[position]) {
+                return;
+            }
+            swap(indices, distances, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(int[] indices, long[] distances, int heapSize) {
+        int position = 0;
+        while (true) {
+            int largest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && distances[left] > distances[largest]) {
+                largest = left;
+            }
+            if (right < heapSize && distances[right] > distances[largest]) {
+                largest = right;
+            }
+            if (largest == position) {
+                return;
+            }
+            swap(indices, distances, largest, position);
+            position = largest;
+        }
+    }
+
+    private static void swap(int[] indices, long[] distances, int a, int b) {
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+        long distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+
+    private static class SparseDistanceMatrix implements DistanceMatrix {
+
+        private final DistanceCalculator distanceCalculator;
+        private final Location[] locations;
+        private final int neighbourCount;
+        private final int[] neighbourIndices;
+        private final long[] neighbourDistances;
+        // direct-mapped cache; entries are immutable, so racy replacement between threads is harmless
+        private final CachedDistance[] cache;
+
+        SparseDistanceMatrix(DistanceCalculator distanceCalculator, Location[] locations, int neighbourCount, int[] neighbourIndices,
+                long[] neighbourDistances, int cacheSize) {
+            this.distanceCalculator = distanceCalculator;
+            this.locations = locations;
+            this.neighbourCount = neighbourCount;
+            this.neighbourIndices = neighbourIndices;
+            this.neighbourDistances = neighbourDistances;
+            this.cache = new CachedDistance[cacheSize];
+        }
+
+        @Override
+        public long getDistance(int fromIndex, int toIndex) {
+            int rowStart = fromIndex * neighbourCount;
+            int position = Arrays.binarySearch(neighbourIndices, rowStart, rowStart + neighbourCount, toIndex);
+            if (position >= 0) {
+                return neighbourDistances[position];
+            }
+
+            long key = (long) fromIndex * locations.length + toIndex;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & (cache.length - 1);
+            CachedDistance cached = cache[slot];
+            if (cached != null && cached.key == key) {
+                return cached.distance;
+            }
+            long distance = distanceCalculator.calculateDistance(locations[fromIndex], locations[toIndex]);
+            cache[slot] = new CachedDistance(key, distance);
+            return distance;
+        }
+
+        @Override
+        public int size() {
+            return locations.length;
+        }
+    }
+
+    private static class CachedDistance {
+
+        private final long key;
+        private final long distance;
+
+        CachedDistance(long key, long distance) {
+            this.key = key;
+            this.distance = distance;
+        }
+    }
+}
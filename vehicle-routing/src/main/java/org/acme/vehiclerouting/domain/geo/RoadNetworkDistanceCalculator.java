@@ -0,0 +1,318 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vehiclerouting.domain.Location;
+
+/**
+ * Driving distances on a road graph loaded from a local file, answered through a {@link ContractionHierarchy}.
+ * Every location is snapped to its nearest graph node; the straight-line legs between location and node are added.
+ * Locations whose nodes are not connected by the graph are rejected with an {@link IllegalArgumentException}, a
+ * placeholder distance would be summed up into the route distances like any other.
+ * <p>
+ * The graph file is plain text, one entry per line, with {@code #} starting a comment:
+ * <ul>
+ * <li>{@code n <id> <latitude> <longitude>} a node</li>
+ * <li>{@code a <fromId> <toId> <meters>} a one-way road</li>
+ * <li>{@code e <fromId> <toId> <meters>} a road in both directions</li>
+ * </ul>
+ */
+public class RoadNetworkDistanceCalculator implements DistanceCalculator {
+
+    private final double[] nodeLatitudes;
+    private final double[] nodeLongitudes;
+    private final ContractionHierarchy contractionHierarchy;
+    private final NodeGrid nodeGrid;
+    private final long graphFingerprint;
+    private final HaversineDistanceCalculator accessDistanceCalculator = new HaversineDistanceCalculator();
+
+    public RoadNetworkDistanceCalculator(double[] nodeLatitudes, double[] nodeLongitudes, int[] arcFrom, int[] arcTo, long[] arcMeters) {
+        if (nodeLatitudes.length == 0) {
+            throw new IllegalArgumentException("The road graph must contain at least one node.");
+        }
+        this.nodeLatitudes = nodeLatitudes;
+        this.nodeLongitudes = nodeLongitudes;
+        this.contractionHierarchy = new ContractionHierarchy(nodeLatitudes.length, arcFrom, arcTo, arcMeters);
+        this.nodeGrid = new NodeGrid(nodeLatitudes, nodeLongitudes);
+        long hash = Arrays.hashCode(nodeLatitudes);
+        hash = 31 * hash + Arrays.hashCode(nodeLongitudes);
+        hash = 31 * hash + Arrays.hashCode(arcFrom);
+        hash = 31 * hash + Arrays.hashCode(arcTo);
+        this.graphFingerprint = 31 * hash + Arrays.hashCode(arcMeters);
+    }
+
+    /**
+     * Load and preprocess a road graph file.
+     *
+     * @param graphFile never null
+     * @return never null
+     */
+    public static RoadNetworkDistanceCalculator load(Path graphFile) {
+        Map<String, Integer> nodeIds = new HashMap<>();
+        double[] latitudes = new double[1024];
+        double[] longitudes = new double[1024];
+        int[] arcFrom = new int[1024];
+        int[] arcTo = new int[1024];
+        long[] arcMeters = new long[1024];
+        int arcCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(graphFile, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = trimmed.split("\\s+");
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException(graphFile + ":" + lineNumber + ": expected 4 fields but was (" + trimmed + ").");
+                }
+                try {
+                    switch (fields[0]) {
+                    case "n":
+                        int node = nodeIds.size();
+                        if (nodeIds.putIfAbsent(fields[1], node) != null) {
+                            throw new IllegalArgumentException(graphFile + ":" + lineNumber + ": duplicate node (" + fields[1] + ").");
+                        }
+                        if (node == latitudes.length) {
+                            latitudes = Arrays.copyOf(latitudes, node * 2);
+                            longitudes = Arrays.copyOf(longitudes, node * 2);
+                        }
+                        latitudes[node] = Double.parseDouble(fields[2]);
+                        longitudes[node] = Double.parseDouble(fields[3]);
+                        break;
+                    case "a":
+                    case "e":
+                        Integer from = nodeIds.get(fields[1]);
+                        Integer to = nodeIds.get(fields[2]);
+                        if (from == null || to == null) {
+                            throw new IllegalArgumentException(graphFile + ":" + lineNumber + ": unknown node in (" + trimmed + ").");
+                        }
+                        long meters = Long.parseLong(fields[3]);
+                        int needed = arcCount + 2;
+                        if (needed > arcFrom.length) {
+                            arcFrom = Arrays.copyOf(arcFrom, Math.max(needed, arcFrom.length * 2));
+                            arcTo = Arrays.copyOf(arcTo, arcFrom.length);
+                            arcMeters = Arrays.copyOf(arcMeters, arcFrom.length);
+                        }
+                        arcFrom[arcCount] = from;
+                        arcTo[arcCount] = to;
+                        arcMeters[arcCount++] = meters;
+                        if (fields[0].equals("e")) {
+                            arcFrom[arcCount] = to;
+                            arcTo[arcCount] = from;
+                            arcMeters[arcCount++] = meters;
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException(graphFile + ":" + lineNumber + ": unknown entry type (" + fields[0] + ").");
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(graphFile + ":" + lineNumber + ": invalid number in (" + trimmed + ").", e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read road graph file (" + graphFile + ").", e);
+        }
+
+        int nodeCount = nodeIds.size();
+        return new RoadNetworkDistanceCalculator(Arrays.copyOf(latitudes, nodeCount), Arrays.copyOf(longitudes, nodeCount),
+                Arrays.copyOf(arcFrom, arcCount), Arrays.copyOf(arcTo, arcCount), Arrays.copyOf(arcMeters, arcCount));
+    }
+
+    /**
+     * @return fingerprint of the road graph
+     */
+    @Override
+    public long configurationFingerprint() {
+        return graphFingerprint;
+    }
+
+    @Override
+    public long calculateDistance(Location from, Location to) {
+        if (from.equals(to)) {
+            return 0L;
+        }
+        int fromNode = nodeGrid.nearestNode(from.getLatitude(), from.getLongitude());
+        int toNode = nodeGrid.nearestNode(to.getLatitude(), to.getLongitude());
+        return withAccess(accessDistance(from, fromNode), contractionHierarchy.distance(fromNode, toNode), accessDistance(to, toNode),
+                from, to);
+    }
+
+    @Override
+    public DistanceMatrix calculateDistanceMatrix(List<Location> locations) {
+        Location[] locationArray = locations.toArray(new Location[0]);
+        int size = locationArray.length;
+        int[] nodes = snap(locationArray);
+        long[] access = accessDistances(locationArray, nodes);
+        long[] distances = contractionHierarchy.distances(nodes, nodes);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                distances[i * size + j] = i == j ? 0L
+                        : withAccess(access[i], distances[i * size + j], access[j], locationArray[i], locationArray[j]);
+            }
+        }
+        return new DenseDistanceMatrix(size, distances);
+    }
+
+    @Override
+    public Map<Location, Map<Location, Long>> calculateBulkDistance(Collection<Location> fromLocations, Collection<Location> toLocations) {
+        Location[] fromArray = fromLocations.toArray(new Location[0]);
+        Location[] toArray = toLocations.toArray(new Location[0]);
+        int[] fromNodes = snap(fromArray);
+        int[] toNodes = snap(toArray);
+        long[] fromAccess = accessDistances(fromArray, fromNodes);
+        long[] toAccess = accessDistances(toArray, toNodes);
+        long[] distances = contractionHierarchy.distances(fromNodes, toNodes);
+        Map<Location, Map<Location, Long>> result = new LinkedHashMap<>();
+        for (int i = 0; i < fromArray.length; i++) {
+            Map<Location, Long> row = new LinkedHashMap<>();
+            for (int j = 0; j < toArray.length; j++) {
+                row.put(toArray[j], fromArray[i].equals(toArray[j]) ? 0L
+                        : withAccess(fromAccess[i], distances[i * toArray.length + j], toAccess[j], fromArray[i], toArray[j]));
+            }
+            result.put(fromArray[i], row);
+        }
+        return result;
+    }
+
+    private int[] snap(Location[] locations) {
+        return Arrays.stream(locations).parallel().mapToInt(location -> nodeGrid.nearestNode(location.getLatitude(), location.getLongitude()))
+                .toArray();
+    }
+
+    private long[] accessDistances(Location[] locations, int[] nodes) {
+        long[] access = new long[locations.length];
+        for (int i = 0; i < locations.length; i++) {
+            access[i] = accessDistance(locations[i], nodes[i]);
+        }
+        return access;
+    }
+
+    private static long withAccess(long fromAccess, long roadDistance, long toAccess, Location from, Location to) {
+        if (roadDistance >= ContractionHierarchy.UNREACHABLE) {
+            throw new IllegalArgumentException("There is no road from location (" + from.getId() + ") to location (" + to.getId() + ").");
+        }
+        return fromAccess + roadDistance + toAccess;
+    }
+
+    private long accessDistance(Location location, int node) {
+        return accessDistanceCalculator.calculateDistance(location, new Location(-1L, nodeLatitudes[node], nodeLongitudes[node]));
+    }
+
+    /**
+     * Uniform grid over the nodes for nearest node lookups, with longitudes scaled to the mean latitude.
+     */
+    private static class NodeGrid {
+
+        private final double[] x;
+        private final double[] y;
+        private final double longitudeScale;
+        private final double minX;
+        private final double minY;
+        private final double cellSize;
+        private final int columns;
+        private final int rows;
+        private final int[] cellStart;
+        private final int[] cellNodes;
+
+        NodeGrid(double[] latitudes, double[] longitudes) {
+            int nodeCount = latitudes.length;
+            longitudeScale = Math.cos(Math.toRadians(Arrays.stream(latitudes).average().orElse(0.0)));
+            x = new double[nodeCount];
+            y = new double[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                x[i] = longitudes[i] * longitudeScale;
+                y[i] = latitudes[i];
+            }
+            minX = Arrays.stream(x).min().orElse(0.0);
+            minY = Arrays.stream(y).min().orElse(0.0);
+            double width = Arrays.stream(x).max().orElse(0.0) - minX;
+            double height = Arrays.stream(y).max().orElse(0.0) - minY;
+            // about one node per cell
+            cellSize = Math.max(Math.sqrt(width * height / nodeCount), Math.max(width, height) / nodeCount + 1e-9);
+            columns = (int) (width / cellSize) + 1;
+            rows = (int) (height / cellSize) + 1;
+
+            cellStart = new int[columns * rows + 1];
+            int[] nodeCells = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodeCells[i] = cell(column(x[i]), row(y[i]));
+                cellStart[nodeCells[i] + 1]++;
+            }
+            for (int c = 0; c < columns * rows; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            cellNodes = new int[nodeCount];
+            int[] fill = Arrays.copyOf(cellStart, columns * rows);
+            for (int i = 0; i < nodeCount; i++) {
+                cellNodes[fill[nodeCells[i]]++] = i;
+            }
+        }
+
+        private int column(double px) {
+            return Math.max(0, Math.min(columns - 1, (int) ((px - minX) / cellSize)));
+        }
+
+        private int row(double py) {
+            return Math.max(0, Math.min(rows - 1, (int) ((py - minY) / cellSize)));
+        }
+
+        private int cell(int column, int row) {
+            return row * columns + column;
+        }
+
+        int nearestNode(double latitude, double longitude) {
+            double px = longitude * longitudeScale;
+            double py = latitude;
+            int centerColumn = column(px);
+            int centerRow = row(py);
+            int best = -1;
+            double bestSquaredDistance = Double.MAX_VALUE;
+            for (int ring = 0; ring <= Math.max(columns, rows); ring++) {
+                // every node outside of the searched rings is at least this far away
+                double ringDistance = (ring - 1) * cellSize;
+                if (best >= 0 && ringDistance > 0 && ringDistance * ringDistance > bestSquaredDistance) {
+                    break;
+                }
+                for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                    if (r < 0 || r >= rows) {
+                        continue;
+                    }
+                    boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+                    for (int c = centerColumn - ring; c <= centerColumn + ring; c += edgeRow ? 1 : 2 * ring) {
+                        if (c >= 0 && c < columns) {
+                            int cell = cell(c, r);
+                            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                                int node = cellNodes[i];
+                                double dx = x[node] - px;
+                                double dy = y[node] - py;
+                                double squaredDistance = dx * dx + dy * dy;
+                                if (squaredDistance < bestSquaredDistance) {
+                                    bestSquaredDistance = squaredDistance;
+                                    best = node;
+                                }
+                            }
+                        }
+                        if (ring == 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+    }
+}
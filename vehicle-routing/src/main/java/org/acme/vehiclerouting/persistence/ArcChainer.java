@@ -0,0 +1,142 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chains arcs, offered best first, into routes. An arc is skipped if its head already has a successor, its tail already
+ * has a predecessor or it would close a cycle, so every offered arc is handled in almost constant time.
+ * <p>
+ * Customers are addressed by their index, see {@link Solution#getSuccessors()}. The depot may start and end any number of
+ * routes.
+ */
+class ArcChainer {
+
+    private final int[] successors;
+    private final int[] predecessors;
+    // union-find over the customers, two customers are in the same set if they are on the same partial route
+    private final int[] parents;
+    private final int[] setSizes;
+    // of the added arcs, see RouteSet
+    private long fingerprintHigh;
+    private long fingerprintLow;
+
+    ArcChainer(int size) {
+        this.successors = new int[size];
+        this.predecessors = new int[size];
+        this.parents = new int[size];
+        this.setSizes = new int[size];
+        Arrays.fill(successors, Solution.UNROUTED);
+        Arrays.fill(predecessors, Solution.UNROUTED);
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            setSizes[i] = 1;
+        }
+    }
+
+    /**
+     * @param from index of the first customer, {@link Solution#DEPOT} for a route start
+     * @param to index of the second customer, {@link Solution#DEPOT} for a route end
+     * @return whether the arc was added
+     */
+    boolean add(int from, int to) {
+        if (from == Solution.DEPOT && to == Solution.DEPOT) {
+            return false;
+        }
+        if (from != Solution.DEPOT && successors[from] != Solution.UNROUTED) {
+            return false;
+        }
+        if (to != Solution.DEPOT && predecessors[to] != Solution.UNROUTED) {
+            return false;
+        }
+        if (from != Solution.DEPOT && to != Solution.DEPOT) {
+            int fromRoot = find(from);
+            int toRoot = find(to);
+            if (fromRoot == toRoot) {
+                return false;
+            }
+            union(fromRoot, toRoot);
+        }
+        if (from != Solution.DEPOT) {
+            successors[from] = to;
+        }
+        if (to != Solution.DEPOT) {
+            predecessors[to] = from;
+        }
+        fingerprintHigh ^= RouteSet.arcKey(from, to, RouteSet.SEED_HIGH);
+        fingerprintLow ^= RouteSet.arcKey(from, to, RouteSet.SEED_LOW);
+        return true;
+    }
+
+    /**
+     * @return the routes of {@link #getRoutes()}, starting and ending at the depot
+     */
+    RouteSet getRouteSet() {
+        int[] routeSuccessors = successors.clone();
+        int[] routePredecessors = predecessors.clone();
+        long high = fingerprintHigh;
+        long low = fingerprintLow;
+        for (int customer = 0; customer < successors.length; customer++) {
+            if (successors[customer] == Solution.UNROUTED && predecessors[customer] == Solution.UNROUTED) {
+                continue;
+            }
+            if (successors[customer] == Solution.UNROUTED) {
+                routeSuccessors[customer] = Solution.DEPOT;
+                high ^= RouteSet.arcKey(customer, Solution.DEPOT, RouteSet.SEED_HIGH);
+                low ^= RouteSet.arcKey(customer, Solution.DEPOT, RouteSet.SEED_LOW);
+            }
+            if (predecessors[customer] == Solution.UNROUTED) {
+                routePredecessors[customer] = Solution.DEPOT;
+                high ^= RouteSet.arcKey(Solution.DEPOT, customer, RouteSet.SEED_HIGH);
+                low ^= RouteSet.arcKey(Solution.DEPOT, customer, RouteSet.SEED_LOW);
+            }
+        }
+        return new RouteSet(routeSuccessors, routePredecessors, high, low);
+    }
+
+    /**
+     * @return the customer indices of each route in visiting order, customers without any added arc are left out
+     */
+    List<int[]> getRoutes() {
+        List<int[]> routes = new ArrayList<>();
+        for (int start = 0; start < successors.length; start++) {
+            boolean chained = successors[start] != Solution.UNROUTED || predecessors[start] != Solution.UNROUTED;
+            // acyclic, so every chained customer is reached from exactly one customer without a predecessor
+            if (!chained || predecessors[start] >= 0) {
+                continue;
+            }
+            int length = 1;
+            for (int current = start; successors[current] >= 0; current = successors[current]) {
+                length++;
+            }
+            int[] route = new int[length];
+            int current = start;
+            for (int i = 0; i < length; i++) {
+                route[i] = current;
+                current = successors[current];
+            }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    private int find(int customer) {
+        while (parents[customer] != customer) {
+            // path halving
+            parents[customer] = parents[parents[customer]];
+            customer = parents[customer];
+        }
+        return customer;
+    }
+
+    private void union(int rootA, int rootB) {
+        if (setSizes[rootA] < setSizes[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parents[rootB] = rootA;
+        setSizes[rootA] += setSizes[rootB];
+    }
+}
@@ -0,0 +1,181 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.RouteSlack;
+import org.acme.vehiclerouting.domain.TimeWindowCompatibility;
+import org.acme.vehiclerouting.domain.Vehicle;
+
+/**
+ * Inserts unrouted customers into existing routes by regret-k: the customer inserted next is the one that loses the most
+ * by not getting its cheapest route, measured against its k - 1 next cheapest routes.
+ * <p>
+ * The cheapest feasible insertion of every customer into every route is kept in a table, so after an insertion only the
+ * column of the modified route is calculated again. A customer that fits into no route gets a vehicle of its own.
+ */
+class RegretInsertion {
+
+    private static final long INFEASIBLE = Long.MAX_VALUE;
+
+    private final int k;
+    private final TimeWindowCompatibility compatibility;
+    private final List<Customer> customers;
+    private final int[] customerIndices;
+    private final boolean[] inserted;
+    private final List<Vehicle> routes = new ArrayList<>();
+    // one column per route, one row per customer
+    private final List<long[]> insertionCosts = new ArrayList<>();
+    private final List<int[]> insertionPositions = new ArrayList<>();
+    // the k cheapest routes of every customer, cheapest first, -1 for missing ones
+    private final long[][] cheapestCosts;
+    private final int[][] cheapestRoutes;
+
+    /**
+     * @param k number of cheapest routes the regret of a customer is based on, at least 1
+     * @param customers the customers to insert, ties are broken by this order
+     */
+    RegretInsertion(int k, TimeWindowCompatibility compatibility, List<Customer> customers) {
+        this.k = k;
+        this.compatibility = compatibility;
+        this.customers = customers;
+        this.customerIndices = customers.stream().mapToInt(compatibility::indexOf).toArray();
+        this.inserted = new boolean[customers.size()];
+        this.cheapestCosts = new long[customers.size()][k];
+        this.cheapestRoutes = new int[customers.size()][k];
+        for (int customer = 0; customer < customers.size(); customer++) {
+            Arrays.fill(cheapestCosts[customer], INFEASIBLE);
+            Arrays.fill(cheapestRoutes[customer], -1);
+        }
+    }
+
+    /**
+     * @param usedVehicles routes the customers may be inserted into, vehicles opened for customers are added
+     * @param unusedVehicles vehicles to open when a customer fits into no route
+     */
+    void insertAll(List<Vehicle> usedVehicles, Iterator<Vehicle> unusedVehicles) {
+        usedVehicles.forEach(this::addRoute);
+        for (int remaining = customers.size(); remaining > 0; remaining--) {
+            int customer = nextCustomer();
+            int route = cheapestRoutes[customer][0];
+            inserted[customer] = true;
+            if (route < 0) {
+                Vehicle vehicle = unusedVehicles.next();
+                vehicle.addCustomer(customers.get(customer));
+                usedVehicles.add(vehicle);
+                addRoute(vehicle);
+            } else {
+                routes.get(route).addCustomer(insertionPositions.get(route)[customer], customers.get(customer));
+                updateRoute(route);
+            }
+        }
+    }
+
+    private void addRoute(Vehicle vehicle) {
+        routes.add(vehicle);
+        insertionCosts.add(new long[customers.size()]);
+        insertionPositions.add(new int[customers.size()]);
+        updateRoute(routes.size() - 1);
+    }
+
+    private void updateRoute(int route) {
+        Vehicle vehicle = routes.get(route);
+        RouteSlack routeSlack = new RouteSlack(vehicle, compatibility);
+        int freeCapacity = vehicle.getCapacity() - vehicle.getTotalDemand();
+        long[] costs = insertionCosts.get(route);
+        int[] positions = insertionPositions.get(route);
+        for (int customer = 0; customer < customers.size(); customer++) {
+            if (inserted[customer]) {
+                continue;
+            }
+            Customer candidate = customers.get(customer);
+            costs[customer] = INFEASIBLE;
+            if (candidate.getDemand() > freeCapacity) {
+                continue;
+            }
+            for (int position = 0; position <= routeSlack.size(); position++) {
+                if (routeSlack.isFeasibleInsertion(candidate, customerIndices[customer], position)) {
+                    long cost = routeSlack.getInsertionDistance(candidate, position);
+                    if (cost < costs[customer]) {
+                        costs[customer] = cost;
+                        positions[customer] = position;
+                    }
+                }
+            }
+        }
+        for (int customer = 0; customer < customers.size(); customer++) {
+            // the other routes did not change, so the cheapest ones only change if this route is or becomes one of them
+            long cost = costs[customer];
+            if (!inserted[customer] && (contains(cheapestRoutes[customer], route)
+                    || (cost != INFEASIBLE && cost <= cheapestCosts[customer][k - 1]))) {
+                updateCheapestRoutes(customer);
+            }
+        }
+    }
+
+    private void updateCheapestRoutes(int customer) {
+        long[] cheapest = cheapestCosts[customer];
+        int[] cheapestRouteIndices = cheapestRoutes[customer];
+        Arrays.fill(cheapest, INFEASIBLE);
+        Arrays.fill(cheapestRouteIndices, -1);
+        for (int route = 0; route < routes.size(); route++) {
+            long cost = insertionCosts.get(route)[customer];
+            int i = k - 1;
+            if (cost >= cheapest[i]) {
+                continue;
+            }
+            while (i > 0 && cheapest[i - 1] > cost) {
+                cheapest[i] = cheapest[i - 1];
+                cheapestRouteIndices[i] = cheapestRouteIndices[i - 1];
+                i--;
+            }
+            cheapest[i] = cost;
+            cheapestRouteIndices[i] = route;
+        }
+    }
+
+    private static boolean contains(int[] routeIndices, int route) {
+        for (int routeIndex : routeIndices) {
+            if (routeIndex == route) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Customers with fewer than k feasible routes come first, the fewer the earlier. Among customers with the same number
+     * the highest regret wins, then the cheapest insertion.
+     */
+    private int nextCustomer() {
+        int best = -1;
+        int bestMissing = -1;
+        long bestRegret = 0;
+        long bestCost = 0;
+        for (int customer = 0; customer < customers.size(); customer++) {
+            if (inserted[customer]) {
+                continue;
+            }
+            long[] cheapest = cheapestCosts[customer];
+            int missing = 0;
+            long regret = 0;
+            for (long cost : cheapest) {
+                if (cost == INFEASIBLE) {
+                    missing++;
+                } else {
+                    regret += cost - cheapest[0];
+                }
+            }
+            if (best < 0 || missing > bestMissing || (missing == bestMissing && (regret > bestRegret || (regret == bestRegret && cheapest[0] < bestCost)))) {
+                best = customer;
+                bestMissing = missing;
+                bestRegret = regret;
+                bestCost = cheapest[0];
+            }
+        }
+        return best;
+    }
+}
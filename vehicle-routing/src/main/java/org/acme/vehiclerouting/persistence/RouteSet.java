@@ -0,0 +1,174 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.CustomerIndex;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+
+/**
+ * The non-empty routes of a solution as arcs between customer indices, see {@link Solution#getSuccessors()}, regardless of
+ * which vehicle drives which route.
+ * <p>
+ * Its 128-bit fingerprint is the XOR of a pseudo-random key per arc (Zobrist hashing), so it does not depend on the order
+ * of the routes and can be updated arc by arc. Route sets are equal if their fingerprints match and, to rule out
+ * collisions, their arcs are identical.
+ */
+class RouteSet {
+
+    static final long SEED_HIGH = 0x9e3779b97f4a7c15L;
+    static final long SEED_LOW = 0xc2b2ae3d27d4eb4fL;
+
+    private final int[] successors;
+    private final int[] predecessors;
+    private final long fingerprintHigh;
+    private final long fingerprintLow;
+
+    /**
+     * @param successors {@link Solution#DEPOT} at the end of every route, {@link Solution#UNROUTED} for customers on no
+     *        route; not modified afterwards
+     * @param predecessors same for the start of every route
+     * @param fingerprintHigh XOR of {@link #arcKey(int, int, long)} with {@link #SEED_HIGH} over all arcs
+     * @param fingerprintLow same with {@link #SEED_LOW}
+     */
+    RouteSet(int[] successors, int[] predecessors, long fingerprintHigh, long fingerprintLow) {
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.fingerprintHigh = fingerprintHigh;
+        this.fingerprintLow = fingerprintLow;
+    }
+
+    /**
+     * @see #RouteSet(int[], int[], long, long)
+     */
+    static RouteSet of(int[] successors, int[] predecessors) {
+        long high = 0;
+        long low = 0;
+        for (int customer = 0; customer < successors.length; customer++) {
+            if (successors[customer] != Solution.UNROUTED) {
+                high ^= arcKey(customer, successors[customer], SEED_HIGH);
+                low ^= arcKey(customer, successors[customer], SEED_LOW);
+            }
+            if (predecessors[customer] == Solution.DEPOT) {
+                high ^= arcKey(Solution.DEPOT, customer, SEED_HIGH);
+                low ^= arcKey(Solution.DEPOT, customer, SEED_LOW);
+            }
+        }
+        return new RouteSet(successors, predecessors, high, low);
+    }
+
+    static RouteSet of(VehicleRoutingSolution solution) {
+        CustomerIndex customerIndex = solution.getCustomerIndex();
+        int[] successors = new int[customerIndex.size()];
+        int[] predecessors = new int[customerIndex.size()];
+        Arrays.fill(successors, Solution.UNROUTED);
+        Arrays.fill(predecessors, Solution.UNROUTED);
+        for (Vehicle vehicle : solution.getVehicleList()) {
+            List<Customer> customers = vehicle.getCustomerList();
+            int previous = Solution.DEPOT;
+            for (Customer customer : customers) {
+                int current = customerIndex.indexOf(customer);
+                predecessors[current] = previous;
+                if (previous != Solution.DEPOT) {
+                    successors[previous] = current;
+                }
+                previous = current;
+            }
+            if (previous != Solution.DEPOT) {
+                successors[previous] = Solution.DEPOT;
+            }
+        }
+        return of(successors, predecessors);
+    }
+
+    /**
+     * @param from customer index or {@link Solution#DEPOT}
+     * @param to customer index or {@link Solution#DEPOT}
+     * @param seed one per half of the fingerprint
+     */
+    static long arcKey(int from, int to, long seed) {
+        // SplitMix64 finalizer, customer indices and the depot are at least -1
+        long z = ((long) (from + 1) << 32 | (to + 1)) ^ seed;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return never modify it
+     */
+    int[] getSuccessors() {
+        return successors;
+    }
+
+    /**
+     * @return never modify it
+     */
+    int[] getPredecessors() {
+        return predecessors;
+    }
+
+    /**
+     * @return the fingerprint alone, for sets that remember route sets long after their solutions are gone
+     */
+    Fingerprint fingerprint() {
+        return new Fingerprint(fingerprintHigh, fingerprintLow);
+    }
+
+    /**
+     * @return whether no customer is routed
+     */
+    boolean isEmpty() {
+        return Arrays.stream(successors).allMatch(successor -> successor == Solution.UNROUTED);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RouteSet other = (RouteSet) o;
+        // the successors determine the routes, the route starts are the customers that are nobody's successor
+        return fingerprintHigh == other.fingerprintHigh && fingerprintLow == other.fingerprintLow && Arrays.equals(successors, other.successors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprintLow);
+    }
+
+    /**
+     * 128-bit fingerprint of a route set without its arcs. Collisions are not ruled out, but at 128 bits they are negligible.
+     */
+    static class Fingerprint {
+        private final long high;
+        private final long low;
+
+        Fingerprint(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(low);
+        }
+    }
+}
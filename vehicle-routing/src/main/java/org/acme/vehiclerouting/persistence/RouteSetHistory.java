@@ -0,0 +1,59 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Route sets seen so far. Those of the current iteration keep their arcs, so they are compared exactly, see
+ * {@link RouteSet#equals(Object)}. Older ones are remembered by their fingerprint only, at most a given number of them,
+ * the oldest are forgotten first.
+ */
+class RouteSetHistory {
+
+    private final Set<RouteSet> current = new HashSet<>();
+    private final Set<RouteSet.Fingerprint> aged;
+
+    /**
+     * @param capacity number of fingerprints of earlier iterations that are kept
+     */
+    RouteSetHistory(int capacity) {
+        this.aged = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Entry<RouteSet.Fingerprint, Boolean> eldest) {
+                // a forgotten fingerprint only costs solving the same solution once more
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * @return whether the route set was not seen yet
+     */
+    boolean add(RouteSet routes) {
+        return !contains(routes) && current.add(routes);
+    }
+
+    /**
+     * A route set of an earlier iteration with the same fingerprint counts as seen, collisions are negligible at 128 bits.
+     */
+    boolean contains(RouteSet routes) {
+        return current.contains(routes) || aged.contains(routes.fingerprint());
+    }
+
+    void remove(RouteSet routes) {
+        if (!current.remove(routes)) {
+            aged.remove(routes.fingerprint());
+        }
+    }
+
+    /**
+     * Keep only the fingerprints of the route sets seen so far, at the end of an iteration.
+     */
+    void age() {
+        current.forEach(routes -> aged.add(routes.fingerprint()));
+        current.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Number of common arcs of pairs of solutions, keyed by solution id. Each pair is compared once and kept across iterations
+ * until one of the two solutions gets new routes or leaves the pool.
+ */
+class SimilarityMatrix {
+
+    private final ToIntBiFunction<Solution, Solution> similarity;
+    // smaller id, then larger id
+    private final Map<Long, Map<Long, CachedSimilarity>> rows = new HashMap<>();
+
+    SimilarityMatrix() {
+        this(Solution::noCommonArcs);
+    }
+
+    /**
+     * @param similarity symmetric, called for pairs that are not cached
+     */
+    SimilarityMatrix(ToIntBiFunction<Solution, Solution> similarity) {
+        this.similarity = similarity;
+    }
+
+    int get(Solution a, Solution b) {
+        if (a.getId() > b.getId()) {
+            Solution swap = a;
+            a = b;
+            b = swap;
+        }
+        Map<Long, CachedSimilarity> row = rows.computeIfAbsent(a.getId(), id -> new HashMap<>());
+        CachedSimilarity cached = row.get(b.getId());
+        if (cached == null || cached.versionA != a.getVersion() || cached.versionB != b.getVersion()) {
+            cached = new CachedSimilarity(a.getVersion(), b.getVersion(), similarity.applyAsInt(a, b));
+            row.put(b.getId(), cached);
+        }
+        return cached.similarity;
+    }
+
+    /**
+     * Drop all pairs with a solution that is not in the given ones.
+     */
+    void retain(Collection<Solution> solutions) {
+        Set<Long> ids = solutions.stream().map(Solution::getId).collect(Collectors.toSet());
+        rows.keySet().retainAll(ids);
+        rows.values().forEach(row -> row.keySet().retainAll(ids));
+    }
+
+    int size() {
+        return rows.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static class CachedSimilarity {
+        private final int versionA;
+        private final int versionB;
+        private final int similarity;
+
+        CachedSimilarity(int versionA, int versionB, int similarity) {
+            this.versionA = versionA;
+            this.versionB = versionB;
+            this.similarity = similarity;
+        }
+    }
+}
@@ -1,66 +1,137 @@
 package org.acme.vehiclerouting.persistence;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.acme.vehiclerouting.domain.Customer;
-import org.acme.vehiclerouting.domain.Vehicle;
 import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
 
 public class Solution {
+    /**
+     * Successor of the last and predecessor of the first customer of a route.
+     */
+    public static final int DEPOT = -1;
+    /**
+     * Successor and predecessor of a customer that is not routed.
+     */
+    public static final int UNROUTED = -2;
+
     private long id;
     private int lastUpdate;
     private VehicleRoutingSolution vrs;
-    private Map<Customer, Customer> arcs = new HashMap<>();
+    private final HardSoftLongScore parentScore;
+    private final RouteSet combinedRoutes;
+    // indexed by CustomerIndex#indexOf(Customer), which is shared by all solutions of a problem
+    private RouteSet routeSet;
     private boolean arcUpdateRequired;
+    private int version;
 
     private static final AtomicLong sequence = new AtomicLong();
 
     public Solution(VehicleRoutingSolution vrs, int time) {
+        this(vrs, time, null);
+    }
+
+    /**
+     * @param parentScore mean score of the solutions this one was combined from
+     */
+    public Solution(VehicleRoutingSolution vrs, int time, HardSoftLongScore parentScore) {
+        this(vrs, time, parentScore, null);
+    }
+
+    /**
+     * @param combinedRoutes routes of the combination before they were repaired
+     */
+    Solution(VehicleRoutingSolution vrs, int time, HardSoftLongScore parentScore, RouteSet combinedRoutes) {
         this.lastUpdate = time;
         this.vrs = vrs;
+        this.parentScore = parentScore;
+        this.combinedRoutes = combinedRoutes;
         this.arcUpdateRequired = true;
         this.id = sequence.incrementAndGet();
     }
 
-    public void updateArcLists() {
-        this.vrs.getVehicleList().stream().map(Vehicle::getCustomerList).filter(l -> !l.isEmpty()).forEach(l -> {
-            arcs.put(null, l.get(0));
-            for (int i = 0; i < l.size() - 1; i++) {
-                arcs.put(l.get(i), l.get(i + 1));
-            }
-            arcs.put(l.get(l.size() - 1), null);
-        });
+    public synchronized void updateArcLists() {
+        this.routeSet = RouteSet.of(vrs);
         this.arcUpdateRequired = false;
     }
 
-    public void setVehicleRoutingSolution(VehicleRoutingSolution vrs) {
+    public synchronized void setVehicleRoutingSolution(VehicleRoutingSolution vrs) {
         this.vrs = vrs;
         this.arcUpdateRequired = true;
+        this.version++;
+    }
+
+    /**
+     * @return incremented whenever the routes are replaced
+     */
+    public int getVersion() {
+        return version;
     }
 
     public VehicleRoutingSolution getVehicleRoutingSolution() {
         return vrs;
     }
 
+    /**
+     * Number of arcs, including the ones from and to the depot, that both solutions share. Neither solution is changed.
+     *
+     * @param b a solution of the same problem
+     * @return never negative
+     */
     public int noCommonArcs(Solution b) {
-        if (arcUpdateRequired)
-            updateArcLists();
+        int[] otherSuccessors = b.getSuccessors();
+        int[] otherPredecessors = b.getPredecessors();
+        int[] ownSuccessors = getSuccessors();
+        int[] ownPredecessors = getPredecessors();
 
-        Set<Entry<Customer, Customer>> entries = arcs.entrySet();
+        int common = 0;
+        for (int i = 0; i < ownSuccessors.length; i++) {
+            if (ownSuccessors[i] != UNROUTED && ownSuccessors[i] == otherSuccessors[i]) {
+                common++;
+            }
+            // arcs out of the depot
+            if (ownPredecessors[i] == DEPOT && otherPredecessors[i] == DEPOT) {
+                common++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * @return the index of the next customer on the route, {@link #DEPOT} or {@link #UNROUTED} for each customer; never modify it
+     */
+    public int[] getSuccessors() {
+        return getRouteSet().getSuccessors();
+    }
 
-        entries.retainAll(b.getArcs().entrySet());
-        return entries.size();
+    /**
+     * @return the index of the previous customer on the route, {@link #DEPOT} or {@link #UNROUTED} for each customer; never
+     *         modify it
+     */
+    public int[] getPredecessors() {
+        return getRouteSet().getPredecessors();
     }
 
-    public Map<Customer, Customer> getArcs() {
+    synchronized RouteSet getRouteSet() {
         if (arcUpdateRequired)
             updateArcLists();
 
-        return arcs;
+        return routeSet;
+    }
+
+    /**
+     * @return mean score of the solutions this one was combined from, an estimate of its quality before it is solved; null if
+     *         it was not combined
+     */
+    public HardSoftLongScore getParentScore() {
+        return parentScore;
+    }
+
+    /**
+     * @return null if it was not combined
+     */
+    RouteSet getCombinedRoutes() {
+        return combinedRoutes;
     }
 
     public int getLastUpdate() {
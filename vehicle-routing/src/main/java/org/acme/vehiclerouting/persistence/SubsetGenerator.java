@@ -0,0 +1,103 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Subsets of the reference set to combine, generated lazily from solution indices.
+ * <p>
+ * Solutions are addressed by their index in the reference set, best first. A pair is only combined if at least one of its
+ * solutions is from an earlier iteration. Every triple is a pair plus the best solution outside of it, every quadruple a
+ * triple plus the best solution outside of it. So all triples contain solution 0 and all quadruples solutions 0 and 1,
+ * which allows to enumerate both without duplicates and without remembering generated subsets.
+ */
+class SubsetGenerator {
+
+    // see SubsetType#BEST_PREFIXES
+    private static final int SMALLEST_PREFIX = 5;
+
+    private final List<Solution> refSet;
+    private final int iteration;
+    private final int size;
+
+    /**
+     * @param refSet sorted best first, not changed while the subsets are consumed
+     * @param iteration current iteration, solutions updated in it are new
+     */
+    SubsetGenerator(List<Solution> refSet, int iteration) {
+        this.refSet = refSet;
+        this.iteration = iteration;
+        this.size = refSet.size();
+    }
+
+    Stream<List<Solution>> subsets(Set<SubsetType> subsetTypes) {
+        Stream<List<Solution>> subsets = Stream.empty();
+        if (subsetTypes.contains(SubsetType.PAIRS)) {
+            subsets = Stream.concat(subsets, pairs());
+        }
+        if (subsetTypes.contains(SubsetType.TRIPLES)) {
+            subsets = Stream.concat(subsets, triples());
+        }
+        if (subsetTypes.contains(SubsetType.QUADRUPLES)) {
+            subsets = Stream.concat(subsets, quadruples());
+        }
+        if (subsetTypes.contains(SubsetType.BEST_PREFIXES)) {
+            subsets = Stream.concat(subsets, bestPrefixes());
+        }
+        return subsets;
+    }
+
+    Stream<List<Solution>> pairs() {
+        return IntStream.range(0, size).boxed()
+                .flatMap(i -> IntStream.range(i + 1, size).filter(j -> isPair(i, j)).mapToObj(j -> subset(i, j)));
+    }
+
+    /**
+     * Triples {0, a, b}.
+     */
+    Stream<List<Solution>> triples() {
+        return IntStream.range(1, size).boxed()
+                .flatMap(a -> IntStream.range(a + 1, size).filter(b -> isTriple(a, b)).mapToObj(b -> subset(0, a, b)));
+    }
+
+    /**
+     * Quadruples {0, 1, c, d}.
+     */
+    Stream<List<Solution>> quadruples() {
+        return IntStream.range(2, size).boxed()
+                .flatMap(c -> IntStream.range(c + 1, size).filter(d -> isQuadruple(c, d)).mapToObj(d -> subset(0, 1, c, d)));
+    }
+
+    Stream<List<Solution>> bestPrefixes() {
+        return IntStream.rangeClosed(SMALLEST_PREFIX, size).mapToObj(i -> refSet.subList(0, i));
+    }
+
+    private boolean isPair(int i, int j) {
+        return refSet.get(i).getLastUpdate() < iteration || refSet.get(j).getLastUpdate() < iteration;
+    }
+
+    /**
+     * {0, a, b} is pair (a, b) plus 0, pair (0, b) plus 1 if a is 1, or pair (0, 1) plus 2.
+     */
+    private boolean isTriple(int a, int b) {
+        return isPair(a, b) || (a == 1 && isPair(0, b)) || (a == 1 && b == 2 && isPair(0, 1));
+    }
+
+    /**
+     * {0, 1, c, d} is triple {0, c, d} plus 1, triple {0, 1, d} plus 2 if c is 2, or triple {0, 1, 2} plus 3.
+     */
+    private boolean isQuadruple(int c, int d) {
+        return isTriple(c, d) || (c == 2 && isTriple(1, d)) || (c == 2 && d == 3 && isTriple(1, 2));
+    }
+
+    private List<Solution> subset(int... indices) {
+        List<Solution> subset = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            subset.add(refSet.get(index));
+        }
+        return subset;
+    }
+}
@@ -0,0 +1,23 @@
+package org.acme.vehiclerouting.persistence;
+
+/**
+ * Kinds of reference set subsets that are combined into new solutions.
+ */
+public enum SubsetType {
+    /**
+     * Two solutions, at least one of them from an earlier iteration.
+     */
+    PAIRS,
+    /**
+     * A pair plus the best solution outside of it.
+     */
+    TRIPLES,
+    /**
+     * A triple plus the best solution outside of it.
+     */
+    QUADRUPLES,
+    /**
+     * The best 5, 6, ... solutions.
+     */
+    BEST_PREFIXES
+}
@@ -0,0 +1,50 @@
+package org.acme.vehiclerouting.persistence;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * One {@link VehicleRoutingSolutionsRepository} per problem, for example per region, so that several problems are solved at
+ * the same time. Problems are addressed by an id chosen by the client.
+ */
+@ApplicationScoped
+public class VehicleRoutingProblemsRepository {
+
+    /**
+     * Problem generated on startup and solved by the web UI.
+     */
+    public static final String DEMO_PROBLEM_ID = "demo";
+
+    private final Map<String, VehicleRoutingSolutionsRepository> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * @return the new, empty repository; empty if there is one for the problem already
+     */
+    public Optional<VehicleRoutingSolutionsRepository> create(String problemId) {
+        VehicleRoutingSolutionsRepository repository = new VehicleRoutingSolutionsRepository();
+        return repositories.putIfAbsent(problemId, repository) == null ? Optional.of(repository) : Optional.empty();
+    }
+
+    public Optional<VehicleRoutingSolutionsRepository> get(String problemId) {
+        return Optional.ofNullable(repositories.get(problemId));
+    }
+
+    /**
+     * @return whether there was a repository for the problem
+     */
+    public boolean remove(String problemId) {
+        return repositories.remove(problemId) != null;
+    }
+
+    /**
+     * @return sorted
+     */
+    public Set<String> getProblemIds() {
+        return new TreeSet<>(repositories.keySet());
+    }
+}
@@ -1,58 +1,95 @@
 package org.acme.vehiclerouting.persistence;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.acme.vehiclerouting.domain.Customer;
 import org.acme.vehiclerouting.domain.Vehicle;
 import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
 
-import jakarta.enterprise.context.ApplicationScoped;
-
-@ApplicationScoped
+/**
+ * Population of one problem, see {@link VehicleRoutingProblemsRepository}.
+ */
 public class VehicleRoutingSolutionsRepository {
 
+    // customers left over after combining are inserted by regret over their three cheapest routes
+    private static final int REGRET_K = 3;
+    // fingerprints of earlier iterations kept of checked and of combined routes each
+    private static final int MAX_FINGERPRINTS = 100_000;
+
     private int iteration = 0;
     private boolean initialPopulation = true;
 
     private int refSetSize = 20;
-    private List<Solution> vehicleRoutingSolutions = new ArrayList<>();
+    // copy on write: every update publishes a new list, so REST threads can read it while the search updates it
+    private volatile List<Solution> vehicleRoutingSolutions = new ArrayList<>();
 
-    private Set<Integer> checkedRoutes = new HashSet<>();
+    private final RouteSetHistory checkedRoutes = new RouteSetHistory(MAX_FINGERPRINTS);
+    // routes of the combinations so far, repairing them again would give the same solutions
+    private final RouteSetHistory combinedRoutes = new RouteSetHistory(MAX_FINGERPRINTS);
+    private final SimilarityMatrix similarityMatrix;
+    private Set<SubsetType> subsetTypes = EnumSet.of(SubsetType.PAIRS, SubsetType.TRIPLES, SubsetType.QUADRUPLES);
 
     private double initialRefSetDivisionFactor = 2.0;
     private double refSetDivisionFactor = 1.0;
+    private double screeningTolerance = Double.POSITIVE_INFINITY;
+    private Function<VehicleRoutingSolution, HardSoftLongScore> scoreCalculator;
+    private int screenedOutCount = 0;
+
+    public VehicleRoutingSolutionsRepository() {
+        this(new SimilarityMatrix());
+    }
+
+    VehicleRoutingSolutionsRepository(SimilarityMatrix similarityMatrix) {
+        this.similarityMatrix = similarityMatrix;
+    }
 
     public boolean isIntialPopulation() {
         return initialPopulation && iteration == 0;
     }
 
     public void add(VehicleRoutingSolution vehicleRoutingSolution) {
-        int hashCode = vehicleRoutingSolution.getVehicleList().stream().map(Vehicle::getCustomerList).filter(l -> !l.isEmpty()).collect(Collectors.toSet())
-                .hashCode();
-        if (!checkedRoutes.contains(hashCode)) {
-            this.vehicleRoutingSolutions.add(new Solution(vehicleRoutingSolution, iteration));
-            checkedRoutes.add(hashCode);
-        }
+        addAll(List.of(vehicleRoutingSolution));
     }
 
     public void addAll(List<VehicleRoutingSolution> vehicleRoutingSolutions) {
-        vehicleRoutingSolutions.forEach(this::add);
+        List<Solution> solutions = new ArrayList<>(this.vehicleRoutingSolutions);
+        for (VehicleRoutingSolution vehicleRoutingSolution : vehicleRoutingSolutions) {
+            Solution solution = new Solution(vehicleRoutingSolution, iteration);
+            if (checkedRoutes.add(solution.getRouteSet())) {
+                solutions.add(solution);
+            }
+        }
+        this.vehicleRoutingSolutions = solutions;
     }
 
     public void incrementIteration() {
         iteration++;
+        checkedRoutes.age();
+        combinedRoutes.age();
     }
 
     public int getIteration() {
@@ -83,22 +120,43 @@ public class VehicleRoutingSolutionsRepository {
         return this.refSetSize;
     }
 
-    public class DistanceSolutionTuple {
-        private int similarity = 0; // used to store distance to referenceSet during selection
-        private Solution solution;
+    public void setSubsetTypes(Set<SubsetType> subsetTypes) {
+        this.subsetTypes = subsetTypes.isEmpty() ? EnumSet.noneOf(SubsetType.class) : EnumSet.copyOf(subsetTypes);
+    }
 
-        DistanceSolutionTuple(Solution solution, Collection<Solution> referenceSet) {
-            this.solution = solution;
-            this.similarity = referenceSet.stream().mapToInt(this.solution::noCommonArcs).max().orElse(0);
-        }
+    public Set<SubsetType> getSubsetTypes() {
+        return this.subsetTypes;
+    }
 
-        public void updateSimilarity(Solution otherSolution) {
-            similarity = Math.max(similarity, solution.noCommonArcs(otherSolution));
-        }
+    /**
+     * Combined solutions whose soft score is worse than the one of the worst solution by more than this share of it, or whose
+     * hard score is worse at all, are discarded before they are solved. Infinite by default, so nothing is discarded.
+     */
+    public void setScreeningTolerance(double screeningTolerance) {
+        this.screeningTolerance = screeningTolerance;
     }
 
-    private void removeDuplicateSolutions() {
-        Iterator<Solution> iterator = vehicleRoutingSolutions.iterator();
+    public double getScreeningTolerance() {
+        return this.screeningTolerance;
+    }
+
+    /**
+     * Scores the combined solutions right after they are repaired, the same way the solver does, for example through the
+     * solution manager. Called from several threads. Without it combined solutions are neither scored nor screened.
+     */
+    public void setScoreCalculator(Function<VehicleRoutingSolution, HardSoftLongScore> scoreCalculator) {
+        this.scoreCalculator = scoreCalculator;
+    }
+
+    /**
+     * @return number of combined solutions discarded by screening so far
+     */
+    public int getScreenedOutCount() {
+        return this.screenedOutCount;
+    }
+
+    private static void removeDuplicateSolutions(List<Solution> solutions) {
+        Iterator<Solution> iterator = solutions.iterator();
 
         Solution previousSolution = iterator.next();
 
@@ -112,191 +170,424 @@ public class VehicleRoutingSolutionsRepository {
     }
 
     public void updateRefSet() {
-        sortVehicleRoutingSolutions();
-        removeDuplicateSolutions();
+        List<Solution> solutions = sortedByScore(vehicleRoutingSolutions);
+        removeDuplicateSolutions(solutions);
         double divisionFactor = initialPopulation ? initialRefSetDivisionFactor : refSetDivisionFactor;
 
+        List<Solution> refSet;
         if (divisionFactor == 1.0) {
-            vehicleRoutingSolutions = vehicleRoutingSolutions.subList(0, refSetSize);
+            refSet = new ArrayList<>(solutions.subList(0, refSetSize));
         } else {
 
-            List<Solution> refSet = vehicleRoutingSolutions.subList(0, (int) (refSetSize / divisionFactor));
+            List<Solution> bestSolutions = solutions.subList(0, (int) (refSetSize / divisionFactor));
+            List<Solution> diverseCandidates = solutions.subList((int) (refSetSize / divisionFactor), solutions.size());
 
-            List<DistanceSolutionTuple> diverseCandidates = vehicleRoutingSolutions.subList((int) (refSetSize / divisionFactor), vehicleRoutingSolutions.size())
-                    .stream().map(s -> new DistanceSolutionTuple(s, refSet)).sorted((i, j) -> Integer.compare(i.similarity, j.similarity))
-                    .collect(Collectors.toList());
+            refSet = selectDiverseSolutions(bestSolutions, diverseCandidates, refSetSize, similarityMatrix::get);
+        }
+        similarityMatrix.retain(refSet);
+        vehicleRoutingSolutions = refSet;
+        initialPopulation = false;
+    }
 
-            while (refSet.size() < refSetSize && !diverseCandidates.isEmpty()) {
-                DistanceSolutionTuple removed = diverseCandidates.remove(0);
-                refSet.add(removed.solution);
-                diverseCandidates.forEach(c -> c.updateSimilarity(removed.solution));
-                diverseCandidates.sort((i, j) -> Integer.compare(i.similarity, j.similarity));
+    /**
+     * Steady-state update: a solution that came back from the solver replaces the worst member of the reference set right
+     * away if it is better and its routes are not in the reference set yet. Unlike {@link #updateRefSet()} nothing else
+     * changes, so it can be called for each solution as it arrives.
+     *
+     * @param solution not part of the reference set
+     * @return whether the solution entered the reference set
+     */
+    public boolean updateRefSet(Solution solution) {
+        RouteSet routes = solution.getRouteSet();
+        if (vehicleRoutingSolutions.stream().anyMatch(member -> member.getRouteSet().equals(routes))) {
+            return false;
+        }
+        List<Solution> refSet = sortedByScore(vehicleRoutingSolutions);
+        if (refSet.size() >= refSetSize) {
+            Solution worst = refSet.get(refSet.size() - 1);
+            if (solution.getVehicleRoutingSolution().getScore().compareTo(worst.getVehicleRoutingSolution().getScore()) <= 0) {
+                return false;
             }
-
-            vehicleRoutingSolutions = refSet;
+            refSet.remove(worst);
         }
-        initialPopulation = false;
+        refSet.add(solution);
+        refSet = sortedByScore(refSet);
+        similarityMatrix.retain(refSet);
+        vehicleRoutingSolutions = refSet;
+        // every other member is older now, so all subsets with the new one are combined
+        incrementIteration();
+        return true;
     }
 
-    private void sortVehicleRoutingSolutions() {
-        vehicleRoutingSolutions.sort((i, j) -> j.getVehicleRoutingSolution().getScore().compareTo(i.getVehicleRoutingSolution().getScore()));
+    /**
+     * Max-min diversity: repeatedly add the candidate whose largest similarity to the reference set is smallest, the first
+     * one in candidate order on ties.
+     *
+     * @param refSet best solutions, already part of the reference set
+     * @param candidates in order of preference
+     * @return a new list with the reference set followed by the picked candidates
+     */
+    static List<Solution> selectDiverseSolutions(List<Solution> refSet, List<Solution> candidates, int refSetSize,
+            ToIntBiFunction<Solution, Solution> similarity) {
+        List<Solution> selected = new ArrayList<>(refSet);
+        int[] similarities = new int[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            Solution candidate = candidates.get(i);
+            similarities[i] = refSet.stream().mapToInt(member -> similarity.applyAsInt(candidate, member)).max().orElse(0);
+        }
+
+        CandidateHeap heap = new CandidateHeap(similarities);
+        while (selected.size() < refSetSize && !heap.isEmpty()) {
+            Solution picked = candidates.get(heap.poll());
+            selected.add(picked);
+            heap.forEach(i -> heap.increaseSimilarity(i, similarity.applyAsInt(candidates.get(i), picked)));
+        }
+        return selected;
     }
 
-    private Set<Set<Solution>> getSubSets() {
-        sortVehicleRoutingSolutions();
-        Set<Set<Solution>> twoSolutionSets = new HashSet<>();
-        Set<Solution> solutionSet = new HashSet<>(vehicleRoutingSolutions);
+    /**
+     * Indexed binary min-heap of candidate indices, ordered by similarity and then by index. Similarities only ever grow.
+     */
+    private static class CandidateHeap {
+        private final int[] similarities;
+        private final int[] heap;
+        // position of each candidate in the heap, -1 once polled
+        private final int[] positions;
+        private int size;
+
+        CandidateHeap(int[] similarities) {
+            this.similarities = similarities;
+            this.size = similarities.length;
+            this.heap = new int[size];
+            this.positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                heap[i] = i;
+                positions[i] = i;
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
 
-        for (Iterator<Solution> it1 = solutionSet.iterator(); it1.hasNext(); it1 = solutionSet.iterator()) {
-            Solution s1 = it1.next();
-            it1.remove();
+        boolean isEmpty() {
+            return size == 0;
+        }
 
-            for (Iterator<Solution> it2 = solutionSet.iterator(); it2.hasNext();) {
-                Solution s2 = it2.next();
-                if (s1.getLastUpdate() < iteration || s2.getLastUpdate() < iteration) {
-                    Set<Solution> subSet = new HashSet<>();
-                    subSet.add(s1);
-                    subSet.add(s2);
-                    twoSolutionSets.add(subSet);
-                }
+        int poll() {
+            int candidate = heap[0];
+            positions[candidate] = -1;
+            size--;
+            if (size > 0) {
+                move(heap[size], 0);
+                siftDown(0);
             }
+            return candidate;
         }
 
-        Set<Set<Solution>> threeSolutionSets = new HashSet<>();
-        twoSolutionSets.forEach(set -> {
-            Set<Solution> tempSet = new HashSet<>(set);
-            tempSet.add(vehicleRoutingSolutions.stream().filter(solution -> !set.contains(solution)).findFirst().orElse(null));
-            threeSolutionSets.add(tempSet);
-        });
-
-        Set<Set<Solution>> fourSolutionSets = new HashSet<>();
-        threeSolutionSets.forEach(set -> {
-            Set<Solution> tempSet = new HashSet<>(set);
-            tempSet.add(vehicleRoutingSolutions.stream().filter(solution -> !set.contains(solution)).findFirst().orElse(null));
-            fourSolutionSets.add(tempSet);
-        });
-
-        Set<Set<Solution>> bestSolutions = new HashSet<>();
-        for (int i = 5; i <= vehicleRoutingSolutions.size(); i++) {
-            bestSolutions.add(vehicleRoutingSolutions.subList(0, i).stream().collect(Collectors.toSet()));
+        void forEach(IntConsumer action) {
+            // snapshot, the action reorders the heap
+            for (int candidate : Arrays.copyOf(heap, size)) {
+                action.accept(candidate);
+            }
         }
 
-        Set<Set<Solution>> finalSet = new HashSet<>(twoSolutionSets);
-        finalSet.addAll(threeSolutionSets);
-        finalSet.addAll(fourSolutionSets);
-
-        return finalSet;
-    }
-
-    public Set<Solution> combineSolutions(Set<Set<Solution>> subSets) {
-        Set<Solution> combinedSolutions = new HashSet<>();
-        Set<Set<List<Customer>>> allNewRoutes = new HashSet<>();
-
-        subSets.stream().forEach(set -> {
-            Map<Solution, Long> solutionDistanceMap = set.stream()
-                    .collect(Collectors.toMap(Function.identity(), solution -> solution.getVehicleRoutingSolution().getDistanceMeters()));
-            double summedDistance = solutionDistanceMap.values().stream().mapToLong(Long::longValue).sum();
-
-            Map<Solution, Double> intermediateSolutionValues = solutionDistanceMap.entrySet().stream()
-                    .collect(Collectors.toMap(Entry::getKey, entry -> summedDistance / entry.getValue()));
-            double summedIntermediateSolutionValues = intermediateSolutionValues.values().stream().mapToDouble(Double::doubleValue).sum();
-
-            Map<Solution, Double> solutionValues = intermediateSolutionValues.entrySet().stream()
-                    .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue() / summedIntermediateSolutionValues));
-
-            double threshold;
-            switch (set.size()) {
-            case 2:
-                threshold = 1.0;
-                break;
-            case 3:
-                threshold = 0.85;
-                break;
-            case 4:
-                threshold = 0.85;
-                break;
-            default:
-                threshold = 0.8;
+        void increaseSimilarity(int candidate, int similarity) {
+            if (similarity > similarities[candidate]) {
+                similarities[candidate] = similarity;
+                siftDown(positions[candidate]);
             }
+        }
 
-            List<Entry<Customer, Customer>> weightedFilteredSortedArcs = solutionValues.entrySet().stream()
-                    .map(e -> e.getKey().getArcs().entrySet().stream().collect(Collectors.toMap(Function.identity(), v -> e.getValue())))
-                    .flatMap(m -> m.entrySet().stream()).collect(Collectors.toMap(Entry::getKey, Entry::getValue, Double::sum)).entrySet().stream()
-                    .filter(e -> e.getValue() >= threshold).sorted((i, j) -> Double.compare(j.getValue(), i.getValue())).map(Entry::getKey)
-                    .collect(Collectors.toList());
+        private boolean less(int a, int b) {
+            return similarities[a] < similarities[b] || (similarities[a] == similarities[b] && a < b);
+        }
 
-            Set<List<Customer>> newRoutes = combineArcs(weightedFilteredSortedArcs);
+        private void siftDown(int position) {
+            int candidate = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], candidate)) {
+                    break;
+                }
+                move(heap[child], position);
+                position = child;
+            }
+            move(candidate, position);
+        }
+
+        private void move(int candidate, int position) {
+            heap[position] = candidate;
+            positions[candidate] = position;
+        }
+    }
 
-            if (!newRoutes.isEmpty() && !allNewRoutes.contains(newRoutes)) {
-                allNewRoutes.add(newRoutes);
-                String name = set.stream().map(s -> s.getVehicleRoutingSolution().getName()).collect(Collectors.joining(")+(", "(", ")"));
-                Solution newSolution = new Solution(new VehicleRoutingSolution(name, set.iterator().next().getVehicleRoutingSolution(), false), iteration);
-                checkAndRestoreFeasibility(newSolution, newRoutes);
+    /**
+     * @return a new list, best first
+     */
+    private static List<Solution> sortedByScore(Collection<Solution> solutions) {
+        List<Solution> sorted = new ArrayList<>(solutions);
+        sorted.sort((i, j) -> j.getVehicleRoutingSolution().getScore().compareTo(i.getVehicleRoutingSolution().getScore()));
+        return sorted;
+    }
 
-                int hashCode = newSolution.getVehicleRoutingSolution().getVehicleList().stream().map(Vehicle::getCustomerList).filter(l -> !l.isEmpty())
-                        .collect(Collectors.toSet()).hashCode();
+    private Stream<List<Solution>> getSubSets() {
+        List<Solution> solutions = sortedByScore(vehicleRoutingSolutions);
+        vehicleRoutingSolutions = solutions;
+        return new SubsetGenerator(List.copyOf(solutions), iteration).subsets(subsetTypes);
+    }
 
-                if (!checkedRoutes.contains(hashCode))
-                    combinedSolutions.add(newSolution);
+    /**
+     * Combine and repair the subsets in parallel. Subsets resulting in the same routes are only repaired once, and always for
+     * the first of them, so the result does not depend on the number of threads. Routes already combined in an earlier
+     * iteration are not repaired again.
+     * <p>
+     * The repaired solutions are scored right away, see {@link #setScoreCalculator(Function)}, and screened against the worst
+     * solution before the combination, see {@link #setScreeningTolerance(double)}.
+     *
+     * @return new solutions in the order of their subsets
+     */
+    public Set<Solution> combineSolutions(Stream<? extends Collection<Solution>> subSets) {
+        Optional<HardSoftLongScore> worstScore = getWorstScore();
+        // index of the first subset resulting in each set of routes
+        Map<RouteSet, Integer> routeOwners = new ConcurrentHashMap<>();
+
+        // numbered in the order they are generated; the threads take them in batches, so they are never all in memory
+        Iterator<? extends Collection<Solution>> subSetIterator = subSets.iterator();
+        Iterator<IndexedSubSet> indexedSubSets = new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return subSetIterator.hasNext();
             }
 
-        });
+            @Override
+            public IndexedSubSet next() {
+                return new IndexedSubSet(index++, subSetIterator.next());
+            }
+        };
+        List<CombinedSolution> combined = StreamSupport.stream(Spliterators.spliteratorUnknownSize(indexedSubSets, Spliterator.ORDERED), true)
+                .map(subSet -> combineSolution(subSet.index, subSet.solutions, routeOwners)).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        // ids are assigned in subset order
+        Set<Solution> combinedSolutions = new LinkedHashSet<>();
+        for (CombinedSolution combinedSolution : combined) {
+            if (routeOwners.get(combinedSolution.routes) != combinedSolution.subSetIndex) {
+                continue;
+            }
+            if (checkedRoutes.contains(combinedSolution.repairedRoutes)) {
+                continue;
+            }
+            HardSoftLongScore score = combinedSolution.solution.getScore();
+            if (worstScore.isPresent() && score != null && !isWithinTolerance(score, worstScore.get())) {
+                screenedOutCount++;
+                continue;
+            }
+            combinedSolutions.add(new Solution(combinedSolution.solution, iteration, combinedSolution.parentScore,
+                    combinedSolution.routes));
+        }
+        routeOwners.keySet().forEach(combinedRoutes::add);
 
         return combinedSolutions;
     }
 
-    private Set<List<Customer>> combineArcs(List<Entry<Customer, Customer>> weightedFilteredSortedArcs) {
-        Set<List<Customer>> newRoutes = new HashSet<>();
+    private CombinedSolution combineSolution(int subSetIndex, Collection<Solution> set, Map<RouteSet, Integer> routeOwners) {
+        // parents are read by several threads at once: the lazily calculated route aggregates of their vehicles may be
+        // calculated more than once, but they are immutable and their routes are not changed while they are combined
+
+        // sums are taken in subset order, a differently rounded value may decide whether an arc reaches the threshold
+        Map<Solution, Long> solutionDistanceMap = set.stream().collect(Collectors.toMap(Function.identity(),
+                solution -> solution.getVehicleRoutingSolution().getDistanceMeters(), (a, b) -> a, LinkedHashMap::new));
+        double summedDistance = solutionDistanceMap.values().stream().mapToLong(Long::longValue).sum();
+
+        Map<Solution, Double> intermediateSolutionValues = solutionDistanceMap.entrySet().stream()
+                .collect(Collectors.toMap(Entry::getKey, entry -> summedDistance / entry.getValue(), (a, b) -> a, LinkedHashMap::new));
+        double summedIntermediateSolutionValues = intermediateSolutionValues.values().stream().mapToDouble(Double::doubleValue).sum();
+
+        Map<Solution, Double> solutionValues = intermediateSolutionValues.entrySet().stream()
+                .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue() / summedIntermediateSolutionValues));
+
+        double threshold;
+        switch (set.size()) {
+        case 2:
+            threshold = 1.0;
+            break;
+        case 3:
+            threshold = 0.85;
+            break;
+        case 4:
+            threshold = 0.85;
+            break;
+        default:
+            threshold = 0.8;
+        }
 
-        while (!weightedFilteredSortedArcs.isEmpty()) {
-            List<Customer> newRoute = new ArrayList<>();
-            // start by adding best arc
-            Entry<Customer, Customer> addedArc = weightedFilteredSortedArcs.remove(0);
-            newRoute.add(addedArc.getKey());
-            newRoute.add(addedArc.getValue());
-
-            boolean expandRoute = true;
-            while (expandRoute) {
-                expandRoute = false;
-
-                // remove entries with identical heads or trails
-                for (Iterator<Entry<Customer, Customer>> it = weightedFilteredSortedArcs.iterator(); it.hasNext();) {
-                    Entry<Customer, Customer> arc = it.next();
-                    if (Objects.equals(arc.getKey(), addedArc.getKey()) || Objects.equals(arc.getValue(), addedArc.getValue())) {
-                        it.remove();
-                    }
-                }
+        List<WeightedArc> weightedFilteredSortedArcs = weightedFilteredSortedArcs(solutionValues, threshold);
 
-                Customer routeStart = newRoute.get(0);
-                Customer routeEnd = newRoute.get(newRoute.size() - 1);
-
-                for (Iterator<Entry<Customer, Customer>> it = weightedFilteredSortedArcs.iterator(); it.hasNext();) {
-                    Entry<Customer, Customer> arc = it.next();
-                    if (routeStart != null && routeStart.equals(arc.getValue()) && !newRoute.contains(arc.getKey())) {
-                        newRoute.add(0, arc.getKey());
-                    } else if (routeEnd != null && routeEnd.equals(arc.getKey()) && !newRoute.contains(arc.getValue())) {
-                        newRoute.add(arc.getValue());
-                    } else {
-                        continue;
-                    }
+        VehicleRoutingSolution first = set.iterator().next().getVehicleRoutingSolution();
+        ArcChainer chainer = chainArcs(weightedFilteredSortedArcs, first.getCustomerList().size());
+        RouteSet newRoutes = chainer.getRouteSet();
 
-                    addedArc = arc;
-                    it.remove();
-                    expandRoute = true;
-                    break;
+        // checked on the arcs alone, before anything is copied or repaired
+        if (newRoutes.isEmpty() || combinedRoutes.contains(newRoutes) || routeOwners.merge(newRoutes, subSetIndex, Math::min) != subSetIndex) {
+            // an earlier subset or iteration results in the same routes
+            return null;
+        }
+        String name = set.stream().map(s -> s.getVehicleRoutingSolution().getName()).collect(Collectors.joining(")+(", "(", ")"));
+        VehicleRoutingSolution newSolution = new VehicleRoutingSolution(name, first, false);
+        // copies keep the order of the customer list, so the positions match the customer indices
+        checkAndRestoreFeasibility(newSolution, toCustomers(chainer.getRoutes(), first.getCustomerList()));
+        // replaces the score copied from the first solution
+        newSolution.setScore(scoreCalculator == null ? null : scoreCalculator.apply(newSolution));
+        return new CombinedSolution(subSetIndex, newRoutes, RouteSet.of(newSolution), newSolution, meanScore(set));
+    }
+
+    private boolean isWithinTolerance(HardSoftLongScore score, HardSoftLongScore worstScore) {
+        if (score.hardScore() != worstScore.hardScore()) {
+            return score.hardScore() > worstScore.hardScore();
+        }
+        // soft scores are negative costs
+        return worstScore.softScore() - score.softScore() <= screeningTolerance * Math.max(1L, Math.abs(worstScore.softScore()));
+    }
+
+    /**
+     * @return null if a solution has no score
+     */
+    static HardSoftLongScore meanScore(Collection<Solution> solutions) {
+        long hardScore = 0;
+        long softScore = 0;
+        for (Solution solution : solutions) {
+            HardSoftLongScore score = solution.getVehicleRoutingSolution().getScore();
+            if (score == null) {
+                return null;
+            }
+            hardScore += score.hardScore();
+            softScore += score.softScore();
+        }
+        return HardSoftLongScore.of(hardScore / solutions.size(), softScore / solutions.size());
+    }
+
+    private static class IndexedSubSet {
+        private final int index;
+        private final Collection<Solution> solutions;
+
+        IndexedSubSet(int index, Collection<Solution> solutions) {
+            this.index = index;
+            this.solutions = solutions;
+        }
+    }
+
+    private static class CombinedSolution {
+        private final int subSetIndex;
+        private final RouteSet routes;
+        private final RouteSet repairedRoutes;
+        private final VehicleRoutingSolution solution;
+        private final HardSoftLongScore parentScore;
+
+        CombinedSolution(int subSetIndex, RouteSet routes, RouteSet repairedRoutes, VehicleRoutingSolution solution, HardSoftLongScore parentScore) {
+            this.subSetIndex = subSetIndex;
+            this.routes = routes;
+            this.repairedRoutes = repairedRoutes;
+            this.solution = solution;
+            this.parentScore = parentScore;
+        }
+    }
+
+    /**
+     * Sum the values of the solutions that contain an arc and keep the arcs reaching the threshold, best first.
+     *
+     * @return arcs between customer indices with {@link Solution#DEPOT} standing for the depot
+     */
+    private static List<WeightedArc> weightedFilteredSortedArcs(Map<Solution, Double> solutionValues, double threshold) {
+        // fixed order, so that equal weights are always sorted the same way
+        List<Solution> solutions = solutionValues.keySet().stream().sorted(Comparator.comparingLong(Solution::getId)).collect(Collectors.toList());
+        int solutionCount = solutions.size();
+        int[][] successors = new int[solutionCount][];
+        int[][] predecessors = new int[solutionCount][];
+        double[] values = new double[solutionCount];
+        for (int s = 0; s < solutionCount; s++) {
+            successors[s] = solutions.get(s).getSuccessors();
+            predecessors[s] = solutions.get(s).getPredecessors();
+            values[s] = solutionValues.get(solutions.get(s));
+        }
+
+        List<WeightedArc> arcs = new ArrayList<>();
+        for (int i = 0; i < successors[0].length; i++) {
+            for (int s = 0; s < solutionCount; s++) {
+                int successor = successors[s][i];
+                if (successor == Solution.UNROUTED || isCountedBefore(successors, s, i)) {
+                    continue;
+                }
+                double weight = 0.0;
+                for (int t = s; t < solutionCount; t++) {
+                    if (successors[t][i] == successor) {
+                        weight += values[t];
+                    }
+                }
+                if (weight >= threshold) {
+                    arcs.add(new WeightedArc(i, successor, weight));
+                }
+            }
+            double depotWeight = 0.0;
+            for (int s = 0; s < solutionCount; s++) {
+                if (predecessors[s][i] == Solution.DEPOT) {
+                    depotWeight += values[s];
                 }
             }
-            // remove route from and to depot if added.
-            newRoute.removeIf(Objects::isNull);
-            newRoutes.add(newRoute);
+            if (depotWeight > 0.0 && depotWeight >= threshold) {
+                arcs.add(new WeightedArc(Solution.DEPOT, i, depotWeight));
+            }
+        }
+        arcs.sort((i, j) -> Double.compare(j.weight, i.weight));
+        return arcs;
+    }
+
+    private static boolean isCountedBefore(int[][] successors, int solution, int customer) {
+        for (int s = 0; s < solution; s++) {
+            if (successors[s][customer] == successors[solution][customer]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class WeightedArc {
+        private final int from;
+        private final int to;
+        private final double weight;
+
+        WeightedArc(int from, int to, double weight) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+        }
+    }
+
+    private static ArcChainer chainArcs(List<WeightedArc> weightedFilteredSortedArcs, int customerCount) {
+        ArcChainer chainer = new ArcChainer(customerCount);
+        weightedFilteredSortedArcs.forEach(arc -> chainer.add(arc.from, arc.to));
+        return chainer;
+    }
+
+    private static Set<List<Customer>> toCustomers(List<int[]> routes, List<Customer> customers) {
+        Set<List<Customer>> newRoutes = new HashSet<>();
+        for (int[] route : routes) {
+            newRoutes.add(Arrays.stream(route).mapToObj(customers::get).collect(Collectors.toList()));
         }
         return newRoutes;
     }
 
-    private void checkAndRestoreFeasibility(Solution newSolution, Set<List<Customer>> newRoutes) {
-        Iterator<Vehicle> unusedVehicles = new ArrayList<>(newSolution.getVehicleRoutingSolution().getVehicleList()).iterator();
+    private static void checkAndRestoreFeasibility(VehicleRoutingSolution newSolution, Set<List<Customer>> newRoutes) {
+        Iterator<Vehicle> unusedVehicles = new ArrayList<>(newSolution.getVehicleList()).iterator();
         List<Vehicle> usedVehicles = new ArrayList<>();
-        List<Customer> unroutedCustomers = new ArrayList<>(newSolution.getVehicleRoutingSolution().getCustomerList());
+        List<Customer> unroutedCustomers = new ArrayList<>(newSolution.getCustomerList());
         Set<List<Customer>> tempRoutes = new HashSet<>(newRoutes);
         for (Iterator<List<Customer>> it = tempRoutes.iterator(); it.hasNext(); it = tempRoutes.iterator()) {
             Vehicle vehicle = unusedVehicles.next();
@@ -306,7 +597,7 @@ public class VehicleRoutingSolutionsRepository {
             List<Customer> newRoute = it.next();
             it.remove();
 
-            vehicle.getCustomerList().addAll(newRoute);
+            vehicle.replaceCustomers(newRoute);
             int truncatePosition = newRoute.size();
             Customer firstDemandViolation = vehicle.getFirstDemandViolation();
             if (firstDemandViolation != null) {
@@ -318,10 +609,9 @@ public class VehicleRoutingSolutionsRepository {
             }
 
             if (truncatePosition < newRoute.size()) {
-                vehicle.getCustomerList().clear();
                 List<Customer> newFeasibleRoute = newRoute.subList(0, truncatePosition);
                 unroutedCustomers.removeAll(newFeasibleRoute);
-                vehicle.getCustomerList().addAll(newFeasibleRoute);
+                vehicle.replaceCustomers(newFeasibleRoute);
                 tempRoutes.add(newRoute.subList(truncatePosition, newRoute.size()));
             } else {
                 unroutedCustomers.removeAll(newRoute);
@@ -330,64 +620,63 @@ public class VehicleRoutingSolutionsRepository {
         }
 
         // add unrouted customers
-        for (Iterator<Customer> it = unroutedCustomers.iterator(); it.hasNext();) {
-            Customer customer = it.next();
-
-            long bestDeltaDistance = Long.MAX_VALUE;
-            Vehicle bestVehicle = null;
-            List<Customer> bestSequence = null;
-
-            for (Iterator<Vehicle> it2 = usedVehicles.stream().filter(v -> customer.getDemand() <= (v.getCapacity() - v.getTotalDemand())).iterator(); it2
-                    .hasNext();) {
-                Vehicle vehicle = it2.next();
-                long currentDistance = vehicle.getTotalDistanceMeters();
-
-                vehicle.getCustomerList().add(0, customer);
-
-                long deltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-
-                if (!vehicle.isServiceTimeViolated() && deltaDistance < bestDeltaDistance) {
-                    bestDeltaDistance = deltaDistance;
-                    bestVehicle = vehicle;
-                    bestSequence = List.copyOf(vehicle.getCustomerList());
-                }
-
-                for (int i = 0; i < vehicle.getCustomerList().size() - 1; i++) {
-                    Collections.swap(vehicle.getCustomerList(), i, i + 1);
-                    deltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-                    if (!vehicle.isServiceTimeViolated() && deltaDistance < bestDeltaDistance) {
-                        bestDeltaDistance = vehicle.getTotalDistanceMeters() - currentDistance;
-                        bestVehicle = vehicle;
-                        bestSequence = List.copyOf(vehicle.getCustomerList());
-                    }
-                }
-                vehicle.getCustomerList().remove(customer);
-            }
-
-            if (bestVehicle != null) {
-                bestVehicle.getCustomerList().clear();
-                bestVehicle.getCustomerList().addAll(bestSequence);
-            } else {
-                Vehicle newRoute = unusedVehicles.next();
-                newRoute.getCustomerList().add(customer);
-                usedVehicles.add(newRoute);
-            }
-        }
+        new RegretInsertion(REGRET_K, newSolution.getTimeWindowCompatibility(), unroutedCustomers).insertAll(usedVehicles, unusedVehicles);
     }
 
     public Set<Solution> generateNewSolutions() {
         Set<Solution> newSolutions = combineSolutions(getSubSets());
-        vehicleRoutingSolutions.addAll(newSolutions);
+        List<Solution> solutions = new ArrayList<>(vehicleRoutingSolutions);
+        solutions.addAll(newSolutions);
+        vehicleRoutingSolutions = solutions;
         return newSolutions;
     }
 
+    /**
+     * Steady-state generation: combine the subsets of the reference set that contain the given member. The new solutions
+     * are not added to the reference set, see {@link #updateRefSet(Solution)}.
+     */
+    public Set<Solution> generateNewSolutions(Solution member) {
+        return generateNewSolutions(member, Set.of());
+    }
+
+    /**
+     * @param pending members whose subsets are combined later, subsets containing one of them are left to it
+     * @see #generateNewSolutions(Solution)
+     */
+    public Set<Solution> generateNewSolutions(Solution member, Set<Solution> pending) {
+        return combineSolutions(getSubSets().filter(subset -> subset.contains(member) && subset.stream().noneMatch(pending::contains)));
+    }
+
+    /**
+     * Remove solutions that will not be solved, for example added by {@link #generateNewSolutions()} but not admitted. Their
+     * combinations may be generated again.
+     */
+    public void removeAll(Collection<Solution> solutions) {
+        List<Solution> remaining = new ArrayList<>(vehicleRoutingSolutions);
+        remaining.removeAll(solutions);
+        vehicleRoutingSolutions = remaining;
+        solutions.stream().map(Solution::getCombinedRoutes).filter(Objects::nonNull).forEach(combinedRoutes::remove);
+    }
+
+    /**
+     * @return never changed afterwards, updates replace the list
+     */
     public List<Solution> getSolutions() {
         return vehicleRoutingSolutions;
     }
 
+    /**
+     * @return score of the worst solution, the worst member of the reference set right after an update of it
+     */
+    public Optional<HardSoftLongScore> getWorstScore() {
+        return vehicleRoutingSolutions.stream().map(s -> s.getVehicleRoutingSolution().getScore()).filter(Objects::nonNull)
+                .min(Comparator.naturalOrder());
+    }
+
     public Optional<Solution> getBestSolution() {
-        boolean useScore = vehicleRoutingSolutions.stream().allMatch(s -> s.getVehicleRoutingSolution().getScore() != null);
-        return vehicleRoutingSolutions.stream().sorted((i, j) -> {
+        List<Solution> solutions = vehicleRoutingSolutions;
+        boolean useScore = solutions.stream().allMatch(s -> s.getVehicleRoutingSolution().getScore() != null);
+        return solutions.stream().sorted((i, j) -> {
             if (useScore)
                 return j.getVehicleRoutingSolution().getScore().compareTo(i.getVehicleRoutingSolution().getScore());
             else {
@@ -0,0 +1,76 @@
+package org.acme.vehiclerouting.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.acme.vehiclerouting.persistence.Solution;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+
+/**
+ * Solutions waiting for a solver thread, the one with the best {@link Solution#getParentScore()} first. Solutions that were
+ * not combined come before all others, ties are broken by id, so older solutions go first.
+ * <p>
+ * The queue is bounded: if it is full, the solutions with the worst parent score are dropped. Not thread-safe.
+ */
+class AdmissionQueue {
+
+    private static final Comparator<Solution> BY_PARENT_SCORE = Comparator
+            .comparing(Solution::getParentScore, Comparator.nullsFirst(Comparator.<HardSoftLongScore> reverseOrder()))
+            .thenComparingLong(Solution::getId);
+
+    private final int capacity;
+    private final NavigableSet<Solution> waiting = new TreeSet<>(BY_PARENT_SCORE);
+
+    AdmissionQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the solutions that did not fit, either offered ones or ones that were already waiting
+     */
+    List<Solution> addAll(Collection<Solution> solutions) {
+        waiting.addAll(solutions);
+        List<Solution> dropped = new ArrayList<>();
+        while (waiting.size() > capacity) {
+            dropped.add(waiting.pollLast());
+        }
+        return dropped;
+    }
+
+    /**
+     * @return null if empty
+     */
+    Solution poll() {
+        return waiting.pollFirst();
+    }
+
+    /**
+     * Drop the solutions whose parents are on average worse than the worst member of the reference set, they stem from a
+     * reference set that has moved on since.
+     *
+     * @return the dropped solutions
+     */
+    List<Solution> dropDominated(HardSoftLongScore worstScore) {
+        List<Solution> dropped = new ArrayList<>();
+        while (!waiting.isEmpty() && waiting.last().getParentScore() != null && waiting.last().getParentScore().compareTo(worstScore) < 0) {
+            dropped.add(waiting.pollLast());
+        }
+        return dropped;
+    }
+
+    boolean isFull() {
+        return waiting.size() >= capacity;
+    }
+
+    boolean isEmpty() {
+        return waiting.isEmpty();
+    }
+
+    int size() {
+        return waiting.size();
+    }
+}
@@ -0,0 +1,130 @@
+package org.acme.vehiclerouting.rest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+
+/**
+ * Gives every improvement job a time budget of its own instead of one global spent limit. A solution at least as good as
+ * the worst member of the reference set gets the full budget, a worse one less the larger its gap is, down to the minimum.
+ * <p>
+ * A job is also terminated once it has not found a new best solution for a share of its budget, so a hopeless solution
+ * releases its solver thread early.
+ */
+class ImprovementScheduler {
+
+    private final long minSpentMillis;
+    private final long maxSpentMillis;
+    private final double hopelessGap;
+    private final double unimprovedShare;
+    private final LongConsumer terminateEarly;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "improvement-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, Budget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * @param hopelessGap relative soft score gap to the worst member at which a solution only gets the minimum budget
+     * @param unimprovedShare share of its budget a job may go without a new best solution
+     * @param terminateEarly terminates the job of a problem id, no matter if it is still running
+     */
+    ImprovementScheduler(long minSpentMillis, long maxSpentMillis, double hopelessGap, double unimprovedShare, LongConsumer terminateEarly) {
+        this.minSpentMillis = minSpentMillis;
+        this.maxSpentMillis = maxSpentMillis;
+        this.hopelessGap = hopelessGap;
+        this.unimprovedShare = unimprovedShare;
+        this.terminateEarly = terminateEarly;
+    }
+
+    /**
+     * @param score of the solution before improvement, null if not calculated
+     * @param worstScore of the worst member of the reference set, null if there is no reference set yet
+     */
+    long getSpentLimitMillis(HardSoftLongScore score, HardSoftLongScore worstScore) {
+        if (score == null || worstScore == null || score.compareTo(worstScore) >= 0) {
+            return maxSpentMillis;
+        }
+        if (score.hardScore() < worstScore.hardScore()) {
+            return minSpentMillis;
+        }
+        // soft scores are negative costs
+        double gap = (double) (worstScore.softScore() - score.softScore()) / Math.max(1L, Math.abs(worstScore.softScore()));
+        double promise = Math.max(0.0, 1.0 - gap / hopelessGap);
+        return minSpentMillis + Math.round((maxSpentMillis - minSpentMillis) * promise);
+    }
+
+    long getUnimprovedSpentLimitMillis(long spentLimitMillis) {
+        return Math.min(spentLimitMillis, Math.max(minSpentMillis, Math.round(spentLimitMillis * unimprovedShare)));
+    }
+
+    /**
+     * Call when a solver thread starts on the problem, not when it is submitted, so waiting for a thread costs no budget.
+     */
+    void start(long problemId, long spentLimitMillis) {
+        Budget budget = new Budget(problemId, getUnimprovedSpentLimitMillis(spentLimitMillis));
+        budgets.put(problemId, budget);
+        budget.spentLimit = timer.schedule(() -> terminate(problemId), spentLimitMillis, TimeUnit.MILLISECONDS);
+        budget.checkUnimproved();
+    }
+
+    void improved(long problemId) {
+        Budget budget = budgets.get(problemId);
+        if (budget != null) {
+            budget.lastImprovement = System.currentTimeMillis();
+        }
+    }
+
+    void finished(long problemId) {
+        Budget budget = budgets.remove(problemId);
+        if (budget != null) {
+            budget.cancel();
+        }
+    }
+
+    private void terminate(long problemId) {
+        finished(problemId);
+        terminateEarly.accept(problemId);
+    }
+
+    private class Budget {
+
+        private final long problemId;
+        private final long unimprovedSpentLimitMillis;
+        private volatile long lastImprovement = System.currentTimeMillis();
+        private volatile ScheduledFuture<?> spentLimit;
+        private volatile ScheduledFuture<?> unimprovedSpentLimit;
+
+        private Budget(long problemId, long unimprovedSpentLimitMillis) {
+            this.problemId = problemId;
+            this.unimprovedSpentLimitMillis = unimprovedSpentLimitMillis;
+        }
+
+        private void checkUnimproved() {
+            if (budgets.get(problemId) != this) {
+                // finished in the meantime
+                return;
+            }
+            long unimprovedMillis = System.currentTimeMillis() - lastImprovement;
+            if (unimprovedMillis >= unimprovedSpentLimitMillis) {
+                terminate(problemId);
+            } else {
+                unimprovedSpentLimit = timer.schedule(this::checkUnimproved, unimprovedSpentLimitMillis - unimprovedMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void cancel() {
+            spentLimit.cancel(false);
+            if (unimprovedSpentLimit != null) {
+                unimprovedSpentLimit.cancel(false);
+            }
+        }
+    }
+}
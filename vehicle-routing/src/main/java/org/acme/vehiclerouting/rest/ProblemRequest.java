@@ -0,0 +1,58 @@
+package org.acme.vehiclerouting.rest;
+
+import org.acme.vehiclerouting.bootstrap.DemoDataBuilder;
+import org.acme.vehiclerouting.domain.Location;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+
+/**
+ * Problem submitted to {@link SolverResource#submit(String, boolean, ProblemRequest)}, generated within the given region. The
+ * defaults are the demo problem, so fields left out keep its values.
+ */
+public class ProblemRequest {
+
+    /**
+     * Latitude and longitude, like {@link Location} is serialized.
+     */
+    public double[] southWestCorner = { DemoDataBuilder.DEMO_SOUTH_WEST_LATITUDE, DemoDataBuilder.DEMO_SOUTH_WEST_LONGITUDE };
+    public double[] northEastCorner = { DemoDataBuilder.DEMO_NORTH_EAST_LATITUDE, DemoDataBuilder.DEMO_NORTH_EAST_LONGITUDE };
+    public int customerCount = DemoDataBuilder.DEMO_CUSTOMER_COUNT;
+    public int vehicleCount = DemoDataBuilder.DEMO_VEHICLE_COUNT;
+    public int depotCount = DemoDataBuilder.DEMO_DEPOT_COUNT;
+    public int vehicleCapacity = DemoDataBuilder.DEMO_VEHICLE_CAPACITY;
+    public int vehicleFixCost = DemoDataBuilder.DEMO_VEHICLE_FIX_COST;
+    public int minDemand = DemoDataBuilder.DEMO_MIN_DEMAND;
+    public int maxDemand = DemoDataBuilder.DEMO_MAX_DEMAND;
+    public int minServiceTime = DemoDataBuilder.DEMO_MIN_SERVICE_TIME;
+    public int maxServiceTime = DemoDataBuilder.DEMO_MAX_SERVICE_TIME;
+    public int minServiceWindow = DemoDataBuilder.DEMO_MIN_SERVICE_WINDOW;
+    public int maxServiceWindow = DemoDataBuilder.DEMO_MAX_SERVICE_WINDOW;
+    /**
+     * Number of solutions in the initial population.
+     */
+    public int populationSize = DemoDataBuilder.DEMO_POPULATION_SIZE;
+    public long seed = DemoDataBuilder.DEMO_SEED;
+
+    /**
+     * @throws IllegalStateException if the request is invalid
+     */
+    public VehicleRoutingSolution toProblem() {
+        if (southWestCorner == null || southWestCorner.length != 2 || northEastCorner == null || northEastCorner.length != 2) {
+            throw new IllegalStateException("The corners must be given as latitude and longitude.");
+        }
+        return DemoDataBuilder.demo()
+                .setMinDemand(minDemand)
+                .setMaxDemand(maxDemand)
+                .setMinServiceTime(minServiceTime)
+                .setMaxServiceTime(maxServiceTime)
+                .setMinServiceWindow(minServiceWindow)
+                .setMaxServiceWindow(maxServiceWindow)
+                .setVehicleCapacity(vehicleCapacity)
+                .setCustomerCount(customerCount)
+                .setVehicleCount(vehicleCount)
+                .setDepotCount(depotCount)
+                .setVehicleFixCost(vehicleFixCost)
+                .setSouthWestCorner(new Location(0L, southWestCorner[0], southWestCorner[1]))
+                .setNorthEastCorner(new Location(0L, northEastCorner[0], northEastCorner[1]))
+                .build();
+    }
+}
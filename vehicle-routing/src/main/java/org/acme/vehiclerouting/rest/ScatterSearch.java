@@ -0,0 +1,280 @@
+package org.acme.vehiclerouting.rest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.acme.vehiclerouting.persistence.Solution;
+import org.acme.vehiclerouting.persistence.SubsetType;
+import org.acme.vehiclerouting.persistence.VehicleRoutingSolutionsRepository;
+import org.jboss.logging.Logger;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolverManager;
+
+/**
+ * Scatter search over the population of one problem. Searches of different problems share the solver manager, every one
+ * keeps at most its {@link SolverThreadShare} of jobs in it.
+ */
+class ScatterSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(ScatterSearch.class);
+
+    private static final long SOLVING_MILLIS = 300_000L;
+    private static final int ADMISSION_CAPACITY = 256;
+
+    private final AtomicReference<Throwable> solverError = new AtomicReference<>();
+    // problem ids of the running jobs, solutions being solved are not always in the repository
+    private final Set<Long> solvingIds = ConcurrentHashMap.newKeySet();
+    // problem ids of the jobs that failed, their solutions leave the population instead of updating the reference set
+    private final Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopRequested;
+    private volatile boolean running;
+    private boolean closed;
+
+    private final VehicleRoutingSolutionsRepository repository;
+    private final SolverManager<VehicleRoutingSolution, Long> solverManager;
+    private final SolutionManager<VehicleRoutingSolution, HardSoftLongScore> solutionManager;
+    private final ImprovementScheduler improvementScheduler;
+    private final SolverThreadShare threadShare;
+    private final double screeningTolerance;
+
+    /**
+     * @param screeningTolerance see {@link VehicleRoutingSolutionsRepository#setScreeningTolerance(double)}
+     */
+    ScatterSearch(VehicleRoutingSolutionsRepository repository, SolverManager<VehicleRoutingSolution, Long> solverManager,
+            SolutionManager<VehicleRoutingSolution, HardSoftLongScore> solutionManager, ImprovementScheduler improvementScheduler,
+            SolverThreadShare threadShare, double screeningTolerance) {
+        this.repository = repository;
+        this.solverManager = solverManager;
+        this.solutionManager = solutionManager;
+        this.improvementScheduler = improvementScheduler;
+        this.threadShare = threadShare;
+        this.screeningTolerance = screeningTolerance;
+    }
+
+    Status getStatus() {
+        Optional.ofNullable(solverError.getAndSet(null)).ifPresent(throwable -> {
+            throw new RuntimeException("Solver failed", throwable);
+        });
+
+        Solution solution = repository.getBestSolution().orElse(new Solution(VehicleRoutingSolution.empty(), 0));
+        return new Status(solution, solutionManager.explain(solution.getVehicleRoutingSolution()).getSummary(),
+                repository.getSolutions().stream().map(Solution::getId).map(solverManager::getSolverStatus).collect(Collectors.toSet()),
+                repository.getIteration());
+    }
+
+    /**
+     * @return false if the search is running already or closed
+     */
+    synchronized boolean start(boolean steadyState) {
+        if (running || closed) {
+            return false;
+        }
+        repository.setInitialRefSetDivisionFactor(2.0);
+        repository.setRefSetDivisionFactor(1.0);
+        repository.setRefSetSize(20);
+        repository.setSubsetTypes(EnumSet.of(SubsetType.PAIRS, SubsetType.TRIPLES, SubsetType.QUADRUPLES));
+        repository.setScreeningTolerance(screeningTolerance);
+        repository.setScoreCalculator(solutionManager::update);
+        stopRequested = false;
+        running = true;
+        threadShare.join(this);
+        new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                long end = start + SOLVING_MILLIS;
+                if (steadyState) {
+                    solveSteadyState(end);
+                } else {
+                    solveGenerational(end);
+                }
+                LOGGER.debugf("Time used: %d ms", System.currentTimeMillis() - start);
+            } finally {
+                threadShare.leave(this);
+                running = false;
+            }
+        }).start();
+        return true;
+    }
+
+    void stop() {
+        stopRequested = true;
+        repository.getSolutions().stream().map(Solution::getId).forEach(solverManager::terminateEarly);
+        solvingIds.forEach(solverManager::terminateEarly);
+    }
+
+    /**
+     * Stop for good, once the problem is deleted.
+     */
+    synchronized void close() {
+        closed = true;
+        stop();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    private void solveGenerational(long end) {
+        while (System.currentTimeMillis() < end && !stopRequested) {
+            boolean completed;
+            if (repository.isIntialPopulation()) {
+                completed = solveInitialPopulation();
+            } else {
+                // ensure refSet has proper content and size
+                repository.updateRefSet();
+                HardSoftLongScore worstScore = repository.getWorstScore().orElse(null);
+                Set<Solution> newSolutions = repository.generateNewSolutions();
+                AdmissionQueue admission = new AdmissionQueue(ADMISSION_CAPACITY);
+                // would stay in the pool with the score of a parent
+                repository.removeAll(new HashSet<>(admission.addAll(newSolutions)));
+                LOGGER.debugf("New solutions: %d, admitted: %d, screened out so far: %d", newSolutions.size(), admission.size(),
+                        repository.getScreenedOutCount());
+
+                completed = solveAll(admission, worstScore);
+            }
+            if (!completed) {
+                break;
+            }
+            repository.incrementIteration();
+        }
+    }
+
+    /**
+     * The initial population has no reference set to compare with, so it gets the full improvement budget.
+     */
+    private boolean solveInitialPopulation() {
+        AdmissionQueue admission = new AdmissionQueue(Math.max(1, repository.getSolutions().size()));
+        admission.addAll(repository.getSolutions());
+        return solveAll(admission, null);
+    }
+
+    /**
+     * Solve the admitted solutions, best first, with at most the {@link SolverThreadShare} of jobs at a time.
+     *
+     * @return false if interrupted or stopped
+     */
+    private boolean solveAll(AdmissionQueue admission, HardSoftLongScore worstScore) {
+        BlockingQueue<Solution> finished = new LinkedBlockingQueue<>();
+        int solving = 0;
+        while (!stopRequested) {
+            for (; solving < threadShare.get(this) && !admission.isEmpty(); solving++) {
+                startSolving(admission.poll(), worstScore, finished::add);
+            }
+            if (solving == 0) {
+                return true;
+            }
+            Solution solution;
+            try {
+                solution = finished.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            solving--;
+            if (failedIds.remove(solution.getId())) {
+                repository.removeAll(List.of(solution));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * After the initial population, every solution coming back from the solver updates the reference set on its own and the
+     * combinations with it are admitted right away, so no solver thread waits for the slowest job of a wave.
+     */
+    private void solveSteadyState(long end) {
+        // the initial reference set is still selected from the whole solved population
+        if (!solveInitialPopulation()) {
+            return;
+        }
+        repository.updateRefSet();
+        repository.incrementIteration();
+
+        BlockingQueue<Solution> finished = new LinkedBlockingQueue<>();
+        AdmissionQueue admission = new AdmissionQueue(ADMISSION_CAPACITY);
+        // members whose subsets are still to be combined; a subset is combined with the last of its members to be polled
+        Deque<Solution> toCombine = new ArrayDeque<>(repository.getSolutions());
+        int solving = 0;
+        while (!stopRequested) {
+            // backpressure, a member is only combined while its offspring can be admitted
+            while (!admission.isFull() && !toCombine.isEmpty()) {
+                Solution member = toCombine.poll();
+                if (repository.getSolutions().contains(member)) {
+                    repository.removeAll(admission.addAll(repository.generateNewSolutions(member, new HashSet<>(toCombine))));
+                }
+            }
+            for (; solving < threadShare.get(this) && !admission.isEmpty(); solving++) {
+                startSolving(admission.poll(), repository.getWorstScore().orElse(null), finished::add);
+            }
+            long remaining = end - System.currentTimeMillis();
+            if (solving == 0 || remaining <= 0) {
+                break;
+            }
+            Solution solution;
+            try {
+                solution = finished.poll(remaining, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (solution == null) {
+                break;
+            }
+            solving--;
+            if (!failedIds.remove(solution.getId()) && repository.updateRefSet(solution)) {
+                toCombine.add(solution);
+                repository.getWorstScore().ifPresent(worst -> repository.removeAll(admission.dropDominated(worst)));
+            }
+        }
+        // out of time, the results of the running jobs are not needed anymore
+        solvingIds.forEach(solverManager::terminateEarly);
+    }
+
+    /**
+     * @param worstScore of the worst member of the reference set, the improvement budget of the solution depends on its gap
+     *        to it; null for the full budget
+     * @param onFinished called with the solution once its job is done; a failed job is reported by {@link #getStatus()},
+     *        counts as done as well and its problem id is in {@link #failedIds} before the call
+     */
+    private void startSolving(Solution s, HardSoftLongScore worstScore, Consumer<Solution> onFinished) {
+        // combined solutions are scored by the repository; a job terminated before its first new best solution leaves the
+        // submitted one, so it needs a score as well
+        HardSoftLongScore score = s.getVehicleRoutingSolution().getScore();
+        if (score == null) {
+            score = solutionManager.update(s.getVehicleRoutingSolution());
+        }
+        long spentLimitMillis = improvementScheduler.getSpentLimitMillis(score, worstScore);
+        solvingIds.add(s.getId());
+        solverManager.solveAndListen(s.getId(), problemId -> {
+            improvementScheduler.start(problemId, spentLimitMillis);
+            return s.getVehicleRoutingSolution();
+        }, bestSolution -> {
+            improvementScheduler.improved(s.getId());
+            s.setVehicleRoutingSolution(bestSolution);
+        }, finalBestSolution -> {
+            improvementScheduler.finished(s.getId());
+            solvingIds.remove(s.getId());
+            onFinished.accept(s);
+        }, (problemId, throwable) -> {
+            solverError.set(throwable);
+            failedIds.add(s.getId());
+            improvementScheduler.finished(s.getId());
+            solvingIds.remove(s.getId());
+            onFinished.accept(s);
+        });
+    }
+}
@@ -1,99 +1,172 @@
 package org.acme.vehiclerouting.rest;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.acme.vehiclerouting.bootstrap.SequentialInsertion;
 import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
-import org.acme.vehiclerouting.persistence.Solution;
+import org.acme.vehiclerouting.persistence.VehicleRoutingProblemsRepository;
 import org.acme.vehiclerouting.persistence.VehicleRoutingSolutionsRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
 import org.optaplanner.core.api.solver.SolutionManager;
 import org.optaplanner.core.api.solver.SolverManager;
-import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.config.solver.SolverManagerConfig;
 
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 
+/**
+ * The endpoints without a problem id work on the demo problem, see {@link VehicleRoutingProblemsRepository#DEMO_PROBLEM_ID}.
+ */
 @Path("/vrp")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class SolverResource {
 
-    private final AtomicReference<Throwable> solverError = new AtomicReference<>();
+    private static final long MIN_IMPROVEMENT_MILLIS = 250L;
+    private static final double HOPELESS_GAP = 0.1;
+    private static final double UNIMPROVED_SHARE = 0.25;
 
-    private final VehicleRoutingSolutionsRepository repository;
+    private final Map<String, ScatterSearch> searches = new ConcurrentHashMap<>();
+    private final SolverThreadShare threadShare;
+
+    private final VehicleRoutingProblemsRepository problems;
     private final SolverManager<VehicleRoutingSolution, Long> solverManager;
     private final SolutionManager<VehicleRoutingSolution, HardSoftLongScore> solutionManager;
+    private final ImprovementScheduler improvementScheduler;
+    private final double screeningTolerance;
 
-    public SolverResource(VehicleRoutingSolutionsRepository repository, SolverManager<VehicleRoutingSolution, Long> solverManager,
-            SolutionManager<VehicleRoutingSolution, HardSoftLongScore> solutionManager) {
-        this.repository = repository;
+    /**
+     * @param spentLimit improvement budget of solutions at least as good as the worst member of the reference set
+     * @param screeningTolerance see {@link VehicleRoutingSolutionsRepository#setScreeningTolerance(double)}, by default the
+     *        same as the gap beyond which the scheduler only gives the minimum improvement budget
+     * @param parallelSolverCount number of jobs the solver manager runs at the same time, AUTO resolved like the solver
+     *        manager does
+     */
+    public SolverResource(VehicleRoutingProblemsRepository problems, SolverManager<VehicleRoutingSolution, Long> solverManager,
+            SolutionManager<VehicleRoutingSolution, HardSoftLongScore> solutionManager,
+            @ConfigProperty(name = "quarkus.optaplanner.solver.termination.spent-limit") Duration spentLimit,
+            @ConfigProperty(name = "vrp.screening-tolerance", defaultValue = "0.1") double screeningTolerance,
+            @ConfigProperty(name = "quarkus.optaplanner.solver-manager.parallel-solver-count",
+                    defaultValue = SolverManagerConfig.PARALLEL_SOLVER_COUNT_AUTO) String parallelSolverCount) {
+        this.problems = problems;
         this.solverManager = solverManager;
         this.solutionManager = solutionManager;
+        this.screeningTolerance = screeningTolerance;
+        long maxImprovementMillis = spentLimit.toMillis();
+        this.improvementScheduler = new ImprovementScheduler(Math.min(MIN_IMPROVEMENT_MILLIS, maxImprovementMillis), maxImprovementMillis,
+                HOPELESS_GAP, UNIMPROVED_SHARE, solverManager::terminateEarly);
+        // more jobs than solver threads would only queue up in the solver manager, while better ones are admitted later
+        this.threadShare = new SolverThreadShare(
+                new SolverManagerConfig().withParallelSolverCount(parallelSolverCount).resolveParallelSolverCount());
     }
 
-    private Status statusFromSolution(Solution solution) {
-        return new Status(solution, solutionManager.explain(solution.getVehicleRoutingSolution()).getSummary(),
-                this.repository.getSolutions().stream().map(Solution::getId).map(solverManager::getSolverStatus).collect(Collectors.toSet()),
-                this.repository.getIteration());
+    /**
+     * Synchronized with {@link #delete(String)}, so a search is never created for a problem being deleted.
+     */
+    private synchronized ScatterSearch search(String problemId) {
+        VehicleRoutingSolutionsRepository repository = problems.get(problemId)
+                .orElseThrow(() -> new NotFoundException("Unknown problem " + problemId));
+        return searches.computeIfAbsent(problemId, id -> new ScatterSearch(repository, solverManager, solutionManager,
+                improvementScheduler, threadShare, screeningTolerance));
     }
 
     @GET
     @Path("status")
     public Status status() {
-        Optional.ofNullable(solverError.getAndSet(null)).ifPresent(throwable -> {
-            throw new RuntimeException("Solver failed", throwable);
-        });
-
-        Solution s = repository.getBestSolution().orElse(new Solution(VehicleRoutingSolution.empty(), 0));
-        return statusFromSolution(s);
+        return status(VehicleRoutingProblemsRepository.DEMO_PROBLEM_ID);
     }
 
     @POST
     @Path("solve")
-    public void solve() {
-        repository.setInitialRefSetDivisionFactor(2.0);
-        repository.setRefSetDivisionFactor(1.0);
-        repository.setRefSetSize(20);
-        new Thread(() -> {
-            long start = System.currentTimeMillis();
-            while ((System.currentTimeMillis() - start) < 300 * 1e3) {
-                if (repository.isIntialPopulation()) {
-                    repository.getSolutions().forEach(s -> solverManager.solveAndListen(s.getId(), problemId -> s.getVehicleRoutingSolution(),
-                            s::setVehicleRoutingSolution, (problemId, throwable) -> solverError.set(throwable)));
-                } else {
-                    // ensure refSet has proper content and size
-                    repository.updateRefSet();
-                    Set<Solution> newSolutions = repository.generateNewSolutions();
-                    System.err.println("new solutions: " + newSolutions.size());
-
-                    newSolutions.forEach(s -> solverManager.solveAndListen(s.getId(), problemId -> s.getVehicleRoutingSolution(), s::setVehicleRoutingSolution,
-                            (problemId, throwable) -> solverError.set(throwable)));
-                }
-                while (!repository.getSolutions().stream().map(Solution::getId).map(solverManager::getSolverStatus).distinct().collect(Collectors.toSet())
-                        .equals(Set.of(SolverStatus.NOT_SOLVING))) {
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(100);
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
-                }
-                repository.incrementIteration();
-            }
-            System.err.println("Time used: " + (System.currentTimeMillis() - start));
-        }).start();
+    public void solve(@QueryParam("steadyState") @DefaultValue("false") boolean steadyState) {
+        solve(VehicleRoutingProblemsRepository.DEMO_PROBLEM_ID, steadyState);
     }
 
     @POST
     @Path("stopSolving")
     public void stopSolving() {
-        repository.getSolutions().stream().map(Solution::getId).forEach(solverManager::terminateEarly);
+        stopSolving(VehicleRoutingProblemsRepository.DEMO_PROBLEM_ID);
+    }
+
+    @GET
+    @Path("problems")
+    public Set<String> problemIds() {
+        return problems.getProblemIds();
+    }
+
+    /**
+     * Generate the problem and its initial population, then start solving it.
+     */
+    @POST
+    @Path("problems/{problemId}")
+    public void submit(@PathParam("problemId") String problemId, @QueryParam("steadyState") @DefaultValue("false") boolean steadyState,
+            ProblemRequest request) {
+        ProblemRequest problemRequest = request == null ? new ProblemRequest() : request;
+        VehicleRoutingSolution problem;
+        try {
+            problem = problemRequest.toProblem();
+        } catch (IllegalStateException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        VehicleRoutingSolutionsRepository repository = problems.create(problemId)
+                .orElseThrow(() -> new ClientErrorException("Problem " + problemId + " exists already", Response.Status.CONFLICT));
+        repository.addAll(SequentialInsertion.solve(problem, 1, false));
+        repository.addAll(SequentialInsertion.solveParallel(problem, Math.max(0, problemRequest.populationSize - 1), problemRequest.seed));
+        search(problemId).start(steadyState);
+    }
+
+    @GET
+    @Path("problems/{problemId}/status")
+    public Status status(@PathParam("problemId") String problemId) {
+        return search(problemId).getStatus();
+    }
+
+    /**
+     * Does nothing if the problem is being solved already.
+     */
+    @POST
+    @Path("problems/{problemId}/solve")
+    public void solve(@PathParam("problemId") String problemId, @QueryParam("steadyState") @DefaultValue("false") boolean steadyState) {
+        search(problemId).start(steadyState);
+    }
+
+    @POST
+    @Path("problems/{problemId}/stopSolving")
+    public void stopSolving(@PathParam("problemId") String problemId) {
+        search(problemId).stop();
+    }
+
+    /**
+     * Stop solving the problem and forget it with all its solutions. The demo problem stays.
+     */
+    @DELETE
+    @Path("problems/{problemId}")
+    public synchronized void delete(@PathParam("problemId") String problemId) {
+        if (VehicleRoutingProblemsRepository.DEMO_PROBLEM_ID.equals(problemId)) {
+            throw new ForbiddenException("The demo problem cannot be deleted");
+        }
+        if (!problems.remove(problemId)) {
+            throw new NotFoundException("Unknown problem " + problemId);
+        }
+        // a search of the problem handed out before cannot be started anymore
+        Optional.ofNullable(searches.remove(problemId)).ifPresent(ScatterSearch::close);
     }
 }
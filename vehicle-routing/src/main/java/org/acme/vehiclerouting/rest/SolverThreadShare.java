@@ -0,0 +1,41 @@
+package org.acme.vehiclerouting.rest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shares the solver threads evenly among the searches running at the same time: each may keep at most its share of jobs in
+ * the solver manager, at least one. The threads left over go one each to the searches that joined first. When a search
+ * starts, the others lower their number of jobs as their jobs finish, so a large problem cannot starve the others.
+ */
+class SolverThreadShare {
+
+    private final int threads;
+    // in the order of joining
+    private final List<Object> searches = new CopyOnWriteArrayList<>();
+
+    SolverThreadShare(int threads) {
+        this.threads = threads;
+    }
+
+    void join(Object search) {
+        searches.add(search);
+    }
+
+    void leave(Object search) {
+        searches.remove(search);
+    }
+
+    /**
+     * @return number of jobs the search may have in the solver manager
+     */
+    int get(Object search) {
+        Object[] running = searches.toArray();
+        if (running.length == 0) {
+            return threads;
+        }
+        int index = List.of(running).indexOf(search);
+        int extra = index >= 0 && index < threads % running.length ? 1 : 0;
+        return Math.max(1, threads / running.length + extra);
+    }
+}
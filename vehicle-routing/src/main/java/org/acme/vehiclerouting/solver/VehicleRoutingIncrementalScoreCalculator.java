@@ -0,0 +1,236 @@
+package org.acme.vehiclerouting.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.Location;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import org.optaplanner.core.api.score.calculator.ConstraintMatchAwareIncrementalScoreCalculator;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.score.constraint.Indictment;
+import org.optaplanner.core.impl.score.constraint.DefaultConstraintMatchTotal;
+
+/**
+ * Hand-written alternative to {@link VehicleRoutingConstraintProvider} with the same constraints and weights.
+ * <p>
+ * Every route keeps prefix arrays of demand, distance, service time violations and departure time.
+ * A list change from index {@code fromIndex} on only recalculates the route from there, the prefix before it stays valid.
+ * Select it with {@code quarkus.optaplanner.solver-config-xml=org/acme/vehiclerouting/solver/incrementalSolverConfig.xml}.
+ */
+public class VehicleRoutingIncrementalScoreCalculator
+        implements ConstraintMatchAwareIncrementalScoreCalculator<VehicleRoutingSolution, HardSoftLongScore> {
+
+    private static final String CONSTRAINT_PACKAGE = VehicleRoutingConstraintProvider.class.getPackage().getName();
+
+    private final Map<Vehicle, RouteState> routeStates = new IdentityHashMap<>();
+    // penalties, so both are never negative
+    private long hardPenalty;
+    private long softPenalty;
+
+    @Override
+    public void resetWorkingSolution(VehicleRoutingSolution workingSolution) {
+        routeStates.clear();
+        hardPenalty = 0;
+        softPenalty = 0;
+        for (Vehicle vehicle : workingSolution.getVehicleList()) {
+            insert(vehicle);
+        }
+    }
+
+    @Override
+    public void resetWorkingSolution(VehicleRoutingSolution workingSolution, boolean constraintMatchEnabled) {
+        // constraint matches are derived from the route states on demand
+        resetWorkingSolution(workingSolution);
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        if (entity instanceof Vehicle) {
+            insert((Vehicle) entity);
+        }
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        // Do nothing
+    }
+
+    @Override
+    public void beforeListVariableChanged(Object entity, String variableName, int fromIndex, int toIndex) {
+        RouteState routeState = routeStates.get((Vehicle) entity);
+        hardPenalty -= routeState.hardPenalty;
+        softPenalty -= routeState.softPenalty;
+    }
+
+    @Override
+    public void afterListVariableChanged(Object entity, String variableName, int fromIndex, int toIndex) {
+        RouteState routeState = routeStates.get((Vehicle) entity);
+        routeState.update(fromIndex);
+        hardPenalty += routeState.hardPenalty;
+        softPenalty += routeState.softPenalty;
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        if (entity instanceof Vehicle) {
+            RouteState routeState = routeStates.remove((Vehicle) entity);
+            hardPenalty -= routeState.hardPenalty;
+            softPenalty -= routeState.softPenalty;
+        }
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public HardSoftLongScore calculateScore() {
+        return HardSoftLongScore.of(-hardPenalty, -softPenalty);
+    }
+
+    @Override
+    public Collection<ConstraintMatchTotal<HardSoftLongScore>> getConstraintMatchTotals() {
+        DefaultConstraintMatchTotal<HardSoftLongScore> vehicleCapacity = new DefaultConstraintMatchTotal<>(CONSTRAINT_PACKAGE, "vehicleCapacity",
+                HardSoftLongScore.ONE_HARD);
+        DefaultConstraintMatchTotal<HardSoftLongScore> distance = new DefaultConstraintMatchTotal<>(CONSTRAINT_PACKAGE,
+                "distanceFromPreviousStandstill", HardSoftLongScore.ONE_SOFT);
+        DefaultConstraintMatchTotal<HardSoftLongScore> fixCost = new DefaultConstraintMatchTotal<>(CONSTRAINT_PACKAGE, "fixCost",
+                HardSoftLongScore.ONE_SOFT);
+        DefaultConstraintMatchTotal<HardSoftLongScore> serviceWindow = new DefaultConstraintMatchTotal<>(CONSTRAINT_PACKAGE,
+                "arrivalAfterEndOfServiceWindow", HardSoftLongScore.ONE_HARD);
+        for (RouteState routeState : routeStates.values()) {
+            Vehicle vehicle = routeState.vehicle;
+            int overload = routeState.getDemand() - vehicle.getCapacity();
+            if (overload > 0) {
+                vehicleCapacity.addConstraintMatch(List.of(vehicle), HardSoftLongScore.ofHard(-overload));
+            }
+            if (routeState.size > 0) {
+                distance.addConstraintMatch(List.of(vehicle), HardSoftLongScore.ofSoft(-routeState.getDistance()));
+                fixCost.addConstraintMatch(List.of(vehicle), HardSoftLongScore.ofSoft(-routeState.getFixCost()));
+            }
+            List<Customer> customers = vehicle.getCustomerList();
+            for (int i = 0; i < routeState.size; i++) {
+                if (routeState.violations[i] > (i == 0 ? 0 : routeState.violations[i - 1])) {
+                    serviceWindow.addConstraintMatch(List.of(customers.get(i)), HardSoftLongScore.ofHard(-1));
+                }
+            }
+        }
+        List<ConstraintMatchTotal<HardSoftLongScore>> constraintMatchTotals = new ArrayList<>(4);
+        constraintMatchTotals.add(vehicleCapacity);
+        constraintMatchTotals.add(distance);
+        constraintMatchTotals.add(fixCost);
+        constraintMatchTotals.add(serviceWindow);
+        return constraintMatchTotals;
+    }
+
+    @Override
+    public Map<Object, Indictment<HardSoftLongScore>> getIndictmentMap() {
+        // derived from the constraint match totals
+        return null;
+    }
+
+    private void insert(Vehicle vehicle) {
+        RouteState routeState = new RouteState(vehicle);
+        routeState.update(0);
+        routeStates.put(vehicle, routeState);
+        hardPenalty += routeState.hardPenalty;
+        softPenalty += routeState.softPenalty;
+    }
+
+    /**
+     * Prefix sums of one route; entry {@code i} covers the depot and the customers up to and including index {@code i}.
+     */
+    private static class RouteState {
+
+        private final Vehicle vehicle;
+        private int size;
+        private int[] demands = new int[8];
+        private long[] distances = new long[8];
+        private int[] violations = new int[8];
+        private long[] departureTimes = new long[8];
+        private long returnDistance;
+        private long hardPenalty;
+        private long softPenalty;
+
+        RouteState(Vehicle vehicle) {
+            this.vehicle = vehicle;
+        }
+
+        void update(int fromIndex) {
+            List<Customer> customers = vehicle.getCustomerList();
+            size = customers.size();
+            if (size > demands.length) {
+                int capacity = Math.max(size, demands.length * 2);
+                demands = Arrays.copyOf(demands, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                violations = Arrays.copyOf(violations, capacity);
+                departureTimes = Arrays.copyOf(departureTimes, capacity);
+            }
+
+            Location depotLocation = vehicle.getDepot().getLocation();
+            int demand = 0;
+            long distance = 0;
+            int violationCount = 0;
+            long departureTime = 0;
+            Location previousLocation = depotLocation;
+            if (fromIndex > 0) {
+                demand = demands[fromIndex - 1];
+                distance = distances[fromIndex - 1];
+                violationCount = violations[fromIndex - 1];
+                departureTime = departureTimes[fromIndex - 1];
+                previousLocation = customers.get(fromIndex - 1).getLocation();
+            }
+            // same time model as Vehicle#getTotalTime()
+            for (int i = fromIndex; i < size; i++) {
+                Customer customer = customers.get(i);
+                long legDistance = previousLocation.getDistanceTo(customer.getLocation());
+                long arrivalTime = departureTime + legDistance;
+                demand += customer.getDemand();
+                distance += legDistance;
+                if (arrivalTime > customer.getEndServiceWindow()) {
+                    violationCount++;
+                }
+                departureTime = arrivalTime + Math.max(arrivalTime, customer.getBeginServiceWindow()) + customer.getServiceTime();
+                demands[i] = demand;
+                distances[i] = distance;
+                violations[i] = violationCount;
+                departureTimes[i] = departureTime;
+                previousLocation = customer.getLocation();
+            }
+            returnDistance = size == 0 ? 0 : customers.get(size - 1).getLocation().getDistanceTo(depotLocation);
+
+            hardPenalty = Math.max(0, getDemand() - vehicle.getCapacity()) + (size == 0 ? 0 : violations[size - 1]);
+            softPenalty = getDistance() + getFixCost();
+        }
+
+        int getDemand() {
+            return size == 0 ? 0 : demands[size - 1];
+        }
+
+        long getDistance() {
+            return size == 0 ? 0 : distances[size - 1] + returnDistance;
+        }
+
+        long getFixCost() {
+            return getDemand() == 0 ? 0 : vehicle.getFixCost();
+        }
+    }
+}
@@ -37,6 +37,15 @@ class DemoDataBuilderTest {
         assertNotNull(correctBuilder().build());
     }
 
+    @Test
+    void demo_preset_builds_demo_problem() {
+        VehicleRoutingSolution problem = DemoDataBuilder.demo().build();
+
+        assertEquals(DemoDataBuilder.DEMO_CUSTOMER_COUNT, problem.getCustomerList().size());
+        assertEquals(DemoDataBuilder.DEMO_VEHICLE_COUNT, problem.getVehicleList().size());
+        assertEquals(DemoDataBuilder.DEMO_DEPOT_COUNT, problem.getDepotList().size());
+    }
+
     @Test
     void capacity_greater_than_zero() {
         assertThatIllegalStateException().isThrownBy(correctBuilder().setVehicleCapacity(0)::build);
@@ -0,0 +1,39 @@
+package org.acme.vehiclerouting.bootstrap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+
+class SequentialInsertionTest {
+
+    @Test
+    void parallelSolutionsDoNotDependOnThreadCount() throws Exception {
+        VehicleRoutingSolution problem = TestProblems.problem(60);
+
+        List<List<List<Long>>> singleThreaded = routesInPool(1, problem);
+        List<List<List<Long>>> multiThreaded = routesInPool(4, problem);
+
+        assertThat(multiThreaded).isEqualTo(singleThreaded);
+        // randomized solutions differ from each other
+        assertThat(singleThreaded.stream().distinct().count()).isGreaterThan(1);
+        assertThat(singleThreaded.get(0).stream().mapToInt(List::size).sum()).isEqualTo(60);
+    }
+
+    // parallel streams started from a fork join pool run in that pool
+    private static List<List<List<Long>>> routesInPool(int parallelism, VehicleRoutingSolution problem) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> SequentialInsertion.solveParallel(problem, 8, 42L).stream()
+                    .map(solution -> solution.getVehicleList().stream().map(Vehicle::getCustomerIds).collect(Collectors.toList()))
+                    .collect(Collectors.toList())).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
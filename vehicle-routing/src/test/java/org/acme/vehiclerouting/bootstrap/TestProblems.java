@@ -0,0 +1,39 @@
+package org.acme.vehiclerouting.bootstrap;
+
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+
+/**
+ * Generated problems with the demand, service times and time windows of the demo problem, for tests.
+ */
+public final class TestProblems {
+
+    private TestProblems() {
+    }
+
+    /**
+     * @return problem with two vehicles for every three customers and one depot
+     */
+    public static VehicleRoutingSolution problem(int customerCount) {
+        return problem(customerCount, customerCount * 2 / 3, 1);
+    }
+
+    public static VehicleRoutingSolution problem(int customerCount, int vehicleCount, int depotCount) {
+        return DemoDataBuilder.builder().setMinDemand(1).setMaxDemand(5).setMinServiceTime(50).setMaxServiceTime(500)
+                .setMinServiceWindow(5000).setMaxServiceWindow(40000).setVehicleCapacity(25).setCustomerCount(customerCount)
+                .setVehicleCount(vehicleCount).setDepotCount(depotCount).setSouthWestCorner(new Location(0L, 49.43069, 11.03332))
+                .setNorthEastCorner(new Location(0L, 49.49069, 11.13332)).build();
+    }
+
+    /**
+     * @return initial solutions of {@link #problem(int)}, scored by their distance only
+     */
+    public static List<VehicleRoutingSolution> population(int customerCount, int populationSize) {
+        List<VehicleRoutingSolution> solutions = SequentialInsertion.solveParallel(problem(customerCount), populationSize, 42L);
+        solutions.forEach(solution -> solution.setScore(HardSoftLongScore.ofSoft(-solution.getDistanceMeters())));
+        return solutions;
+    }
+}
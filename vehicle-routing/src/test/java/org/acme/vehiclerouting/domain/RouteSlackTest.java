@@ -0,0 +1,65 @@
+package org.acme.vehiclerouting.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.acme.vehiclerouting.domain.geo.DistanceCalculator;
+import org.acme.vehiclerouting.domain.geo.DistanceMatrix;
+import org.junit.jupiter.api.Test;
+
+class RouteSlackTest {
+
+    @Test
+    void routeSlackMatchesFullRouteEvaluation() {
+        Random random = new Random(0);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i <= 30; i++) {
+            locations.add(new Location(i, random.nextInt(20), random.nextInt(20)));
+        }
+        // manhattan distance
+        DistanceCalculator distanceCalculator = (from, to) -> (long) (Math.abs(from.getLatitude() - to.getLatitude())
+                + Math.abs(from.getLongitude() - to.getLongitude()));
+        DistanceMatrix matrix = distanceCalculator.initDistanceMaps(locations);
+        locations.forEach(location -> location.setDistanceMatrix(matrix));
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            int beginServiceWindow = random.nextInt(50);
+            customers.add(new Customer(i, locations.get(i), 1, random.nextInt(4), beginServiceWindow, beginServiceWindow + random.nextInt(400)));
+        }
+
+        int feasibleInsertions = 0;
+        int infeasibleInsertions = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            List<Customer> shuffled = new ArrayList<>(customers);
+            Collections.shuffle(shuffled, random);
+            List<Customer> route = shuffled.subList(0, random.nextInt(7));
+            Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, locations.get(0)), 0);
+            vehicle.replaceCustomers(route);
+            RouteSlack routeSlack = new RouteSlack(vehicle);
+            long distance = vehicle.getTotalDistanceMeters();
+
+            for (Customer customer : shuffled.subList(route.size(), shuffled.size())) {
+                for (int position = 0; position <= route.size(); position++) {
+                    Vehicle extended = new Vehicle(2L, 100, vehicle.getDepot(), 0);
+                    extended.replaceCustomers(route);
+                    extended.addCustomer(position, customer);
+
+                    boolean feasible = !extended.isServiceTimeViolated();
+                    assertThat(routeSlack.isFeasibleInsertion(customer, position)).isEqualTo(feasible);
+                    assertThat(routeSlack.getInsertionDistance(customer, position)).isEqualTo(extended.getTotalDistanceMeters() - distance);
+                    if (feasible) {
+                        feasibleInsertions++;
+                    } else {
+                        infeasibleInsertions++;
+                    }
+                }
+            }
+        }
+        assertThat(feasibleInsertions).isPositive();
+        assertThat(infeasibleInsertions).isPositive();
+    }
+}
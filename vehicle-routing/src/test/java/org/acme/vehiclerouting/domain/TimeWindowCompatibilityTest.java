@@ -0,0 +1,58 @@
+package org.acme.vehiclerouting.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.acme.vehiclerouting.bootstrap.TestProblems;
+import org.junit.jupiter.api.Test;
+
+class TimeWindowCompatibilityTest {
+
+    @Test
+    void neverFollowingPairsAreViolatedOnEveryRoute() {
+        VehicleRoutingSolution problem = TestProblems.problem(40, 20, 1);
+        List<Customer> customers = problem.getCustomerList();
+        TimeWindowCompatibility compatibility = problem.getTimeWindowCompatibility();
+        Vehicle vehicle = problem.getVehicleList().get(0);
+
+        int neverFollowingPairs = 0;
+        for (Customer a : customers) {
+            for (Customer b : customers) {
+                if (a == b || compatibility.canFollow(a, b)) {
+                    continue;
+                }
+                neverFollowingPairs++;
+                // b is late even when a is served first, straight from the depot
+                vehicle.replaceCustomers(List.of(a, b));
+                assertThat(vehicle.getFirstServiceTimeViolation()).isNotNull();
+                assertThat(compatibility.getTwc(compatibility.indexOf(a), compatibility.indexOf(b)))
+                        .isEqualTo(TimeWindowCompatibility.INCOMPATIBLE);
+            }
+        }
+        assertThat(neverFollowingPairs).isPositive();
+        assertThat(compatibility.canFollow(null, customers.get(0))).isTrue();
+    }
+
+    @Test
+    void sharedWithCopies() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        TimeWindowCompatibility compatibility = problem.getTimeWindowCompatibility();
+
+        VehicleRoutingSolution copy = new VehicleRoutingSolution("copy", problem, false);
+        assertThat(copy.getTimeWindowCompatibility()).isSameAs(compatibility);
+        assertThat(copy.getCustomerIndex()).isSameAs(problem.getCustomerIndex());
+        assertThat(compatibility.size()).isEqualTo(problem.getCustomerList().size());
+    }
+
+    @Test
+    void tooManyCustomersAreRejected() {
+        Customer customer = new Customer(1L, new Location(1L, 0.0, 0.0), 1, 1, 0, 1);
+        List<Customer> customers = Collections.nCopies(TimeWindowCompatibility.MAX_SIZE + 1, customer);
+
+        assertThat(TimeWindowCompatibility.MAX_SIZE).isEqualTo(46_340);
+        assertThatIllegalArgumentException().isThrownBy(() -> TimeWindowCompatibility.of(customers, CustomerIndex.of(List.of(customer))));
+    }
+}
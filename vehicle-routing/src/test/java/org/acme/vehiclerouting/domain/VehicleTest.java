@@ -0,0 +1,150 @@
+package org.acme.vehiclerouting.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.acme.vehiclerouting.domain.geo.DistanceCalculator;
+import org.acme.vehiclerouting.domain.geo.DistanceMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VehicleTest {
+
+    private final AtomicInteger distanceLookups = new AtomicInteger();
+    private Location depotLocation;
+    private Customer customer1;
+    private Customer customer2;
+    private Customer customer3;
+
+    @BeforeEach
+    void initLocations() {
+        depotLocation = new Location(0L, 0.0, 0.0);
+        Location location1 = new Location(1L, 0.0, 4.0);
+        Location location2 = new Location(2L, 3.0, 4.0);
+        Location location3 = new Location(3L, 3.0, 0.0);
+        List<Location> locations = Arrays.asList(depotLocation, location1, location2, location3);
+        // manhattan distance
+        DistanceCalculator distanceCalculator = (from, to) -> (long) (Math.abs(from.getLatitude() - to.getLatitude())
+                + Math.abs(from.getLongitude() - to.getLongitude()));
+        DistanceMatrix matrix = distanceCalculator.initDistanceMaps(locations);
+        DistanceMatrix countingMatrix = new DistanceMatrix() {
+            @Override
+            public long getDistance(int fromIndex, int toIndex) {
+                distanceLookups.incrementAndGet();
+                return matrix.getDistance(fromIndex, toIndex);
+            }
+
+            @Override
+            public int size() {
+                return matrix.size();
+            }
+        };
+        locations.forEach(location -> location.setDistanceMatrix(countingMatrix));
+
+        customer1 = new Customer(1L, location1, 30, 1, 0, 100);
+        customer2 = new Customer(2L, location2, 40, 1, 0, 6);
+        customer3 = new Customer(3L, location3, 50, 1, 0, 100);
+    }
+
+    @Test
+    void aggregatesOfRoute() {
+        Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, depotLocation), 10);
+        assertThat(vehicle.getTotalDistanceMeters()).isZero();
+        assertThat(vehicle.getTotalTime()).isZero();
+        assertThat(vehicle.getCurrentFixCost()).isZero();
+
+        vehicle.addCustomer(customer1);
+        vehicle.addCustomer(customer2);
+        vehicle.addCustomer(customer3);
+
+        assertThat(vehicle.getTotalDemand()).isEqualTo(120);
+        assertThat(vehicle.getFirstDemandViolation()).isSameAs(customer3);
+        assertThat(vehicle.getTotalDistanceMeters()).isEqualTo(4 + 3 + 4 + 3);
+        // arrival 4, departure 4 + 4 + 1 = 9, arrival 12 > 6, departure 12 + 12 + 1 = 25, arrival 29, departure 59, back 62
+        assertThat(vehicle.getTotalTime()).isEqualTo(62);
+        assertThat(vehicle.getNoServiceTimeViolations()).isEqualTo(1);
+        assertThat(vehicle.getFirstServiceTimeViolation()).isSameAs(customer2);
+        assertThat(vehicle.getCurrentFixCost()).isEqualTo(10);
+    }
+
+    @Test
+    void repeatedReadsDoNotRescanRoute() {
+        Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, depotLocation), 0);
+        vehicle.replaceCustomers(List.of(customer1, customer2, customer3));
+
+        long distance = vehicle.getTotalDistanceMeters();
+        int lookups = distanceLookups.get();
+        for (int i = 0; i < 10; i++) {
+            assertThat(vehicle.getTotalDistanceMeters()).isEqualTo(distance);
+            vehicle.getTotalTime();
+            vehicle.getNoServiceTimeViolations();
+            vehicle.isServiceTimeViolated();
+        }
+        assertThat(distanceLookups.get()).isEqualTo(lookups);
+    }
+
+    @Test
+    void mutationsInvalidateAggregates() {
+        Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, depotLocation), 0);
+        vehicle.addCustomer(customer1);
+        vehicle.addCustomer(customer3);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(80);
+        assertThat(vehicle.isServiceTimeViolated()).isFalse();
+
+        vehicle.addCustomer(1, customer2);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(120);
+        assertThat(vehicle.getTotalDistanceMeters()).isEqualTo(14);
+
+        vehicle.swapCustomers(0, 1);
+        assertThat(vehicle.getCustomerIds()).containsExactly(2L, 1L, 3L);
+        assertThat(vehicle.getTotalDistanceMeters()).isEqualTo(7 + 3 + 7 + 3);
+
+        assertThat(vehicle.removeCustomer(customer2)).isTrue();
+        assertThat(vehicle.getTotalDemand()).isEqualTo(80);
+
+        // writes through the live list are tracked as well
+        vehicle.getCustomerList().add(customer2);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(120);
+        vehicle.getCustomerList().removeIf(customer -> customer == customer1);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(90);
+
+        vehicle.setCapacity(80);
+        assertThat(vehicle.getFirstDemandViolation()).isSameAs(customer2);
+
+        vehicle.clearCustomers();
+        assertThat(vehicle.getTotalDemand()).isZero();
+        assertThat(vehicle.getTotalDistanceMeters()).isZero();
+    }
+
+    @Test
+    void plainListIsAdopted() {
+        Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, depotLocation), 0);
+        List<Customer> plainList = new ArrayList<>(List.of(customer1));
+        vehicle.setCustomerList(plainList);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(30);
+
+        vehicle.getCustomerList().add(customer3);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(80);
+        assertThat(plainList).containsExactly(customer1, customer3);
+    }
+
+    @Test
+    void planningCloneTracksItsOwnList() {
+        Vehicle vehicle = new Vehicle(1L, 100, new Depot(1L, depotLocation), 0);
+        vehicle.replaceCustomers(List.of(customer1, customer2));
+        VehicleRoutingSolution solution = new VehicleRoutingSolution("clone", List.of(depotLocation), List.of(vehicle.getDepot()),
+                List.of(vehicle), List.of(customer1, customer2, customer3), depotLocation, depotLocation);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(70);
+
+        Vehicle clone = new VehicleRoutingSolutionCloner().cloneSolution(solution).getVehicleList().get(0);
+        assertThat(clone.getCustomerIds()).containsExactly(1L, 2L);
+        assertThat(clone.getCustomerList().get(0)).isSameAs(customer1);
+        clone.getCustomerList().remove(0);
+        assertThat(clone.getTotalDemand()).isEqualTo(40);
+        assertThat(vehicle.getTotalDemand()).isEqualTo(70);
+    }
+}
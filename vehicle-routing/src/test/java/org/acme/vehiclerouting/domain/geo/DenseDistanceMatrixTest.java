@@ -0,0 +1,43 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Test;
+
+class DenseDistanceMatrixTest {
+
+    private static List<Location> randomLocations(int count) {
+        Random random = new Random(0);
+        return IntStream.range(0, count).mapToObj(i -> new Location(i, random.nextDouble(), random.nextDouble())).collect(Collectors.toList());
+    }
+
+    @Test
+    void symmetricMatrixSpanningSeveralTiles() {
+        List<Location> locations = randomLocations(2 * DenseDistanceMatrix.TILE_SIZE + 7);
+        EuclideanDistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        DenseDistanceMatrix matrix = DenseDistanceMatrix.calculate(distanceCalculator, locations);
+        for (int i = 0; i < locations.size(); i++) {
+            for (int j = 0; j < locations.size(); j++) {
+                assertThat(matrix.getDistance(i, j)).isEqualTo(distanceCalculator.calculateDistance(locations.get(i), locations.get(j)));
+            }
+        }
+    }
+
+    @Test
+    void asymmetricMatrixSpanningSeveralTiles() {
+        List<Location> locations = randomLocations(DenseDistanceMatrix.TILE_SIZE + 3);
+        DistanceCalculator distanceCalculator = (from, to) -> from.getId() * 1000 + to.getId();
+        DenseDistanceMatrix matrix = DenseDistanceMatrix.calculate(distanceCalculator, locations);
+        for (int i = 0; i < locations.size(); i++) {
+            for (int j = 0; j < locations.size(); j++) {
+                assertThat(matrix.getDistance(i, j)).isEqualTo(i * 1000L + j);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Matrix build times of the distance calculators. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class DistanceCalculatorBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static List<Location> randomLocations(int count) {
+        Random random = new Random(0);
+        return IntStream.range(0, count).mapToObj(i -> new Location(i, 49.4 + random.nextDouble() * 0.1, 11.0 + random.nextDouble() * 0.1))
+                .collect(Collectors.toList());
+    }
+
+    private static void benchmark(String name, DistanceCalculator distanceCalculator, List<Location> locations) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            DenseDistanceMatrix.calculate(distanceCalculator, locations);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            DenseDistanceMatrix.calculate(distanceCalculator, locations);
+        }
+        System.out.printf("%-40s %6d locations: %8.1f ms per matrix%n", name, locations.size(),
+                (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS);
+    }
+
+    @Test
+    void matrixBuild() {
+        for (int size : new int[] { 1_000, 5_000 }) {
+            List<Location> locations = randomLocations(size);
+            EuclideanDistanceCalculator euclidean = new EuclideanDistanceCalculator();
+            HaversineDistanceCalculator haversine = new HaversineDistanceCalculator();
+            benchmark("euclidean", euclidean, locations);
+            benchmark("haversine (row kernel)", haversine, locations);
+            benchmark("haversine (pair by pair)", haversine::calculateDistance, locations);
+        }
+    }
+}
@@ -33,4 +33,19 @@ class EuclideanDistanceCalculatorTest {
         Map<Location, Map<Location, Long>> distanceMatrix = distanceCalculator.calculateBulkDistance(locations, locations);
         assertThat(distanceMatrix.get(a).get(b)).isEqualTo(distanceCalculator.calculateDistance(a, b));
     }
+
+    @Test
+    void distanceMatrix() {
+        long id = 0;
+        Location a = new Location(id++, 0.0, 0.0);
+        Location b = new Location(id++, 0.0, 4.0);
+        Location c = new Location(id++, 3.0, 0.0);
+        EuclideanDistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        DistanceMatrix distanceMatrix = distanceCalculator.initDistanceMaps(Arrays.asList(a, b, c));
+        assertThat(distanceMatrix.size()).isEqualTo(3);
+        assertThat(c.getIndex()).isEqualTo(2);
+        assertThat(a.getDistanceTo(a)).isZero();
+        assertThat(b.getDistanceTo(c)).isEqualTo(5 * EuclideanDistanceCalculator.METERS_PER_DEGREE);
+        assertThat(c.getDistanceTo(a)).isEqualTo(distanceCalculator.calculateDistance(c, a));
+    }
 }
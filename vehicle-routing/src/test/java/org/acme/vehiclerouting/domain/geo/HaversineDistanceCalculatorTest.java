@@ -0,0 +1,39 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Test;
+
+class HaversineDistanceCalculatorTest {
+
+    @Test
+    void calculateDistance() {
+        Location london = new Location(0, 51.5007, -0.1246);
+        Location newYork = new Location(1, 40.6892, -74.0445);
+        HaversineDistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+        assertThat(distanceCalculator.calculateDistance(london, london)).isZero();
+        assertThat(distanceCalculator.calculateDistance(london, newYork)).isEqualTo(distanceCalculator.calculateDistance(newYork, london));
+        assertThat(distanceCalculator.calculateDistance(london, newYork)).isCloseTo(5_574_840L, within(1_000L));
+    }
+
+    @Test
+    void rowMatchesPairwiseCalculation() {
+        Random random = new Random(0);
+        Location[] locations = new Location[100];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new Location(i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+        }
+        HaversineDistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+        long[] row = new long[locations.length + 5];
+        for (Location from : locations) {
+            distanceCalculator.calculateDistanceRow(from, locations, 10, locations.length, row, 5);
+            for (int j = 10; j < locations.length; j++) {
+                assertThat(row[5 + j - 10]).isEqualTo(distanceCalculator.calculateDistance(from, locations[j]));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedDistanceMatrixStoreTest {
+
+    private static List<Location> randomLocations(int count, long seed) {
+        Random random = new Random(seed);
+        return IntStream.range(0, count).mapToObj(i -> new Location(i, random.nextDouble(), random.nextDouble())).collect(Collectors.toList());
+    }
+
+    @Test
+    void writeOnceAndReuse(@TempDir Path directory) {
+        Path file = directory.resolve("distances.bin");
+        AtomicLong calculations = new AtomicLong();
+        EuclideanDistanceCalculator euclidean = new EuclideanDistanceCalculator();
+        DistanceCalculator countingCalculator = (from, to) -> {
+            calculations.incrementAndGet();
+            return euclidean.calculateDistance(from, to);
+        };
+
+        List<Location> locations = randomLocations(150, 0);
+        DistanceMatrix written = new MappedDistanceMatrixStore(file, countingCalculator).initDistanceMaps(locations);
+        assertThat(calculations.get()).isEqualTo(150L * 150);
+        assertThat(written.size()).isEqualTo(150);
+        for (Location from : locations) {
+            for (Location to : locations) {
+                assertThat(from.getDistanceTo(to)).isEqualTo(euclidean.calculateDistance(from, to));
+            }
+        }
+
+        calculations.set(0);
+        DistanceMatrix reused = new MappedDistanceMatrixStore(file, countingCalculator).initDistanceMaps(locations);
+        assertThat(calculations.get()).isZero();
+        assertThat(reused.getDistance(3, 140)).isEqualTo(written.getDistance(3, 140));
+
+        List<Location> otherLocations = randomLocations(150, 1);
+        new MappedDistanceMatrixStore(file, countingCalculator).initDistanceMaps(otherLocations);
+        assertThat(calculations.get()).isEqualTo(150L * 150);
+        assertThat(otherLocations.get(7).getDistanceTo(otherLocations.get(9)))
+                .isEqualTo(euclidean.calculateDistance(otherLocations.get(7), otherLocations.get(9)));
+    }
+
+    @Test
+    void otherConfigurationIsNotReused(@TempDir Path directory) {
+        Path file = directory.resolve("distances.bin");
+        AtomicLong calculations = new AtomicLong();
+        EuclideanDistanceCalculator euclidean = new EuclideanDistanceCalculator();
+        DistanceCalculator countingCalculator = (from, to) -> {
+            calculations.incrementAndGet();
+            return euclidean.calculateDistance(from, to);
+        };
+
+        List<Location> locations = randomLocations(50, 0);
+        new MappedDistanceMatrixStore(file, new NearestNeighbourDistanceCalculator(countingCalculator, 5)).initDistanceMaps(locations);
+        long written = calculations.getAndSet(0);
+        assertThat(written).isPositive();
+
+        new MappedDistanceMatrixStore(file, new NearestNeighbourDistanceCalculator(countingCalculator, 5)).initDistanceMaps(locations);
+        assertThat(calculations.get()).isZero();
+
+        new MappedDistanceMatrixStore(file, new NearestNeighbourDistanceCalculator(countingCalculator, 10)).initDistanceMaps(locations);
+        assertThat(calculations.get()).isPositive();
+    }
+}
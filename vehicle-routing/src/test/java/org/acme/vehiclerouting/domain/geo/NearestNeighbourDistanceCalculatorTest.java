@@ -0,0 +1,52 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Test;
+
+class NearestNeighbourDistanceCalculatorTest {
+
+    @Test
+    void nearestNeighboursStoredOtherPairsOnDemand() {
+        Random random = new Random(0);
+        List<Location> locations = IntStream.range(0, 200).mapToObj(i -> new Location(i, random.nextDouble(), random.nextDouble()))
+                .collect(Collectors.toList());
+        EuclideanDistanceCalculator euclidean = new EuclideanDistanceCalculator();
+        AtomicLong calculations = new AtomicLong();
+        DistanceCalculator countingCalculator = (from, to) -> {
+            calculations.incrementAndGet();
+            return euclidean.calculateDistance(from, to);
+        };
+
+        new NearestNeighbourDistanceCalculator(countingCalculator, 10, 64).initDistanceMaps(locations);
+        calculations.set(0);
+
+        Location from = locations.get(0);
+        List<Location> nearest = locations.stream()
+                .sorted((a, b) -> Long.compare(euclidean.calculateDistance(from, a), euclidean.calculateDistance(from, b)))
+                .collect(Collectors.toList());
+        nearest.subList(0, 10).forEach(to -> assertThat(from.getDistanceTo(to)).isEqualTo(euclidean.calculateDistance(from, to)));
+        assertThat(calculations.get()).isZero();
+
+        Location farthest = nearest.get(nearest.size() - 1);
+        assertThat(from.getDistanceTo(farthest)).isEqualTo(euclidean.calculateDistance(from, farthest));
+        assertThat(from.getDistanceTo(farthest)).isEqualTo(euclidean.calculateDistance(from, farthest));
+        assertThat(calculations.get()).isOne();
+
+        locations.forEach(a -> locations.forEach(b -> assertThat(a.getDistanceTo(b)).isEqualTo(euclidean.calculateDistance(a, b))));
+    }
+
+    @Test
+    void neighbourCountGreaterThanZero() {
+        EuclideanDistanceCalculator euclidean = new EuclideanDistanceCalculator();
+        assertThatIllegalArgumentException().isThrownBy(() -> new NearestNeighbourDistanceCalculator(euclidean, 0));
+    }
+}
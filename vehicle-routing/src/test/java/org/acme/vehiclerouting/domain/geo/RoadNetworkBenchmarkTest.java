@@ -0,0 +1,71 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Preprocessing and matrix build times on a synthetic road grid. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RoadNetworkBenchmarkTest {
+
+    private static final int GRID_SIZE = 100;
+    private static final double GRID_STEP_DEGREES = 0.001;
+
+    private static void writeGridGraph(Path graphFile, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(graphFile)) {
+            for (int row = 0; row < GRID_SIZE; row++) {
+                for (int column = 0; column < GRID_SIZE; column++) {
+                    writer.write("n " + (row * GRID_SIZE + column) + " " + (49.4 + row * GRID_STEP_DEGREES) + " " + (11.0 + column * GRID_STEP_DEGREES));
+                    writer.newLine();
+                }
+            }
+            for (int row = 0; row < GRID_SIZE; row++) {
+                for (int column = 0; column < GRID_SIZE; column++) {
+                    int node = row * GRID_SIZE + column;
+                    if (column + 1 < GRID_SIZE) {
+                        writer.write("e " + node + " " + (node + 1) + " " + (70 + random.nextInt(60)));
+                        writer.newLine();
+                    }
+                    if (row + 1 < GRID_SIZE) {
+                        writer.write("e " + node + " " + (node + GRID_SIZE) + " " + (100 + random.nextInt(60)));
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void matrixBuild(@TempDir Path directory) throws IOException {
+        Random random = new Random(0);
+        Path graphFile = directory.resolve("grid.txt");
+        writeGridGraph(graphFile, random);
+
+        long start = System.nanoTime();
+        RoadNetworkDistanceCalculator distanceCalculator = RoadNetworkDistanceCalculator.load(graphFile);
+        System.out.printf("load and contract %d nodes: %8.1f ms%n", GRID_SIZE * GRID_SIZE, (System.nanoTime() - start) / 1e6);
+
+        double extent = GRID_SIZE * GRID_STEP_DEGREES;
+        for (int size : new int[] { 1_000, 5_000 }) {
+            List<Location> locations = IntStream.range(0, size)
+                    .mapToObj(i -> new Location(i, 49.4 + random.nextDouble() * extent, 11.0 + random.nextDouble() * extent))
+                    .collect(Collectors.toList());
+            distanceCalculator.calculateDistanceMatrix(locations);
+            start = System.nanoTime();
+            distanceCalculator.calculateDistanceMatrix(locations);
+            System.out.printf("bucket many-to-many %6d locations: %8.1f ms%n", size, (System.nanoTime() - start) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.vehiclerouting.domain.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.acme.vehiclerouting.domain.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RoadNetworkDistanceCalculatorTest {
+
+    @Test
+    void loadGraphFile(@TempDir Path directory) throws IOException {
+        Path graphFile = directory.resolve("roads.txt");
+        Files.write(graphFile, List.of(
+                "# triangle with a one-way shortcut",
+                "n a 49.00 11.00",
+                "n b 49.00 11.10",
+                "n c 49.10 11.10",
+                "e a b 8000",
+                "e b c 12000",
+                "a c a 5000"));
+        RoadNetworkDistanceCalculator distanceCalculator = RoadNetworkDistanceCalculator.load(graphFile);
+
+        Location a = new Location(0, 49.00, 11.00);
+        Location b = new Location(1, 49.00, 11.10);
+        Location c = new Location(2, 49.10, 11.10);
+        assertThat(distanceCalculator.calculateDistance(a, c)).isEqualTo(20000L);
+        assertThat(distanceCalculator.calculateDistance(c, a)).isEqualTo(5000L);
+        assertThat(distanceCalculator.calculateDistance(c, b)).isEqualTo(12000L);
+
+        DistanceMatrix matrix = distanceCalculator.initDistanceMaps(Arrays.asList(a, b, c));
+        assertThat(matrix.getDistance(0, 2)).isEqualTo(20000L);
+        assertThat(c.getDistanceTo(a)).isEqualTo(5000L);
+        assertThat(distanceCalculator.calculateBulkDistance(List.of(b), List.of(a, c)).get(b).get(a)).isEqualTo(8000L);
+    }
+
+    @Test
+    void invalidGraphFile(@TempDir Path directory) throws IOException {
+        Path graphFile = directory.resolve("roads.txt");
+        Files.write(graphFile, List.of("n a 49.00 11.00", "e a x 10"));
+        assertThatIllegalArgumentException().isThrownBy(() -> RoadNetworkDistanceCalculator.load(graphFile)).withMessageContaining(":2:");
+    }
+
+    @Test
+    void disconnectedLocationsAreRejected() {
+        // two separate roads
+        RoadNetworkDistanceCalculator distanceCalculator = new RoadNetworkDistanceCalculator(new double[] { 49.00, 49.00, 49.50, 49.50 },
+                new double[] { 11.00, 11.10, 11.00, 11.10 }, new int[] { 0, 1, 2, 3 }, new int[] { 1, 0, 3, 2 },
+                new long[] { 8000, 8000, 8000, 8000 });
+        Location a = new Location(0, 49.00, 11.00);
+        Location b = new Location(1, 49.00, 11.10);
+        Location c = new Location(2, 49.50, 11.00);
+
+        assertThat(distanceCalculator.calculateDistance(a, b)).isEqualTo(8000L);
+        assertThatIllegalArgumentException().isThrownBy(() -> distanceCalculator.calculateDistance(a, c)).withMessageContaining("(2)");
+        assertThatIllegalArgumentException().isThrownBy(() -> distanceCalculator.initDistanceMaps(Arrays.asList(a, b, c)));
+    }
+
+    @Test
+    void contractionHierarchyMatchesDijkstra() {
+        Random random = new Random(0);
+        int nodeCount = 400;
+        int arcCount = 1600;
+        int[] arcFrom = new int[arcCount];
+        int[] arcTo = new int[arcCount];
+        long[] arcWeight = new long[arcCount];
+        for (int i = 0; i < arcCount; i++) {
+            // a ring keeps most nodes connected, the rest are random one-way arcs
+            arcFrom[i] = i < nodeCount ? i : random.nextInt(nodeCount);
+            arcTo[i] = i < nodeCount ? (i + 1) % nodeCount : random.nextInt(nodeCount);
+            arcWeight[i] = 1 + random.nextInt(1000);
+        }
+        ContractionHierarchy contractionHierarchy = new ContractionHierarchy(nodeCount, arcFrom, arcTo, arcWeight);
+
+        int[] nodes = random.ints(60, 0, nodeCount).toArray();
+        long[] manyToMany = contractionHierarchy.distances(nodes, nodes);
+        for (int i = 0; i < nodes.length; i++) {
+            long[] expected = dijkstra(nodes[i], nodeCount, arcFrom, arcTo, arcWeight);
+            for (int j = 0; j < nodes.length; j++) {
+                assertThat(manyToMany[i * nodes.length + j]).isEqualTo(expected[nodes[j]]);
+                assertThat(contractionHierarchy.distance(nodes[i], nodes[j])).isEqualTo(expected[nodes[j]]);
+            }
+        }
+    }
+
+    private static long[] dijkstra(int source, int nodeCount, int[] arcFrom, int[] arcTo, long[] arcWeight) {
+        long[] distances = new long[nodeCount];
+        Arrays.fill(distances, ContractionHierarchy.UNREACHABLE);
+        distances[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[] { 0, source });
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int node = (int) entry[1];
+            if (entry[0] > distances[node]) {
+                continue;
+            }
+            for (int i = 0; i < arcFrom.length; i++) {
+                if (arcFrom[i] == node && entry[0] + arcWeight[i] < distances[arcTo[i]]) {
+                    distances[arcTo[i]] = entry[0] + arcWeight[i];
+                    queue.add(new long[] { distances[arcTo[i]], arcTo[i] });
+                }
+            }
+        }
+        return distances;
+    }
+}
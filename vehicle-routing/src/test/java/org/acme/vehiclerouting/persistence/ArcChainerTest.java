@@ -0,0 +1,76 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class ArcChainerTest {
+
+    private static List<List<Integer>> routes(ArcChainer chainer) {
+        return chainer.getRoutes().stream().map(route -> Arrays.stream(route).boxed().collect(Collectors.toList())).collect(Collectors.toList());
+    }
+
+    @Test
+    void chainsArcsInBothDirections() {
+        ArcChainer chainer = new ArcChainer(5);
+        assertThat(chainer.add(1, 2)).isTrue();
+        assertThat(chainer.add(0, 1)).isTrue();
+        assertThat(chainer.add(2, 3)).isTrue();
+
+        assertThat(routes(chainer)).containsExactly(List.of(0, 1, 2, 3));
+    }
+
+    @Test
+    void skipsSecondSuccessorsPredecessorsAndCycles() {
+        ArcChainer chainer = new ArcChainer(4);
+        chainer.add(0, 1);
+        chainer.add(1, 2);
+
+        assertThat(chainer.add(0, 3)).isFalse();
+        assertThat(chainer.add(3, 1)).isFalse();
+        assertThat(chainer.add(2, 0)).isFalse();
+        assertThat(routes(chainer)).containsExactly(List.of(0, 1, 2));
+    }
+
+    @Test
+    void depotStartsAndEndsSeveralRoutes() {
+        ArcChainer chainer = new ArcChainer(5);
+        chainer.add(Solution.DEPOT, 0);
+        chainer.add(Solution.DEPOT, 2);
+        chainer.add(0, 1);
+        chainer.add(1, Solution.DEPOT);
+        chainer.add(3, Solution.DEPOT);
+
+        // nothing may follow a route end or precede a route start
+        assertThat(chainer.add(1, 2)).isFalse();
+        assertThat(chainer.add(4, 0)).isFalse();
+        assertThat(routes(chainer)).containsExactlyInAnyOrder(List.of(0, 1), List.of(2), List.of(3));
+    }
+
+    @Test
+    void everyChainedCustomerIsOnExactlyOneRoute() {
+        int size = 5000;
+        Random random = new Random(1);
+        ArcChainer chainer = new ArcChainer(size);
+        Set<Integer> chained = new HashSet<>();
+        for (int i = 0; i < 20 * size; i++) {
+            int from = random.nextInt(size + 1) - 1;
+            int to = random.nextInt(size + 1) - 1;
+            if (from != to && chainer.add(from, to)) {
+                chained.add(from);
+                chained.add(to);
+            }
+        }
+        chained.remove(Solution.DEPOT);
+
+        List<Integer> routed = routes(chainer).stream().flatMap(List::stream).collect(Collectors.toList());
+        assertThat(routed).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(chained);
+    }
+}
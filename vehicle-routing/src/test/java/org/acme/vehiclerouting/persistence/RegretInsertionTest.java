@@ -0,0 +1,59 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.acme.vehiclerouting.bootstrap.TestProblems;
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.Depot;
+import org.acme.vehiclerouting.domain.Location;
+import org.acme.vehiclerouting.domain.TimeWindowCompatibility;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.acme.vehiclerouting.domain.geo.DistanceCalculator;
+import org.acme.vehiclerouting.domain.geo.DistanceMatrix;
+import org.junit.jupiter.api.Test;
+
+class RegretInsertionTest {
+
+    @Test
+    void customerWithExpensiveAlternativeGoesFirst() {
+        List<Location> locations = List.of(new Location(0, 0, 0), new Location(1, 0, 3), new Location(2, 2, 0), new Location(3, 0, 1));
+        // manhattan distance
+        DistanceCalculator distanceCalculator = (from, to) -> (long) (Math.abs(from.getLatitude() - to.getLatitude())
+                + Math.abs(from.getLongitude() - to.getLongitude()));
+        DistanceMatrix matrix = distanceCalculator.initDistanceMaps(locations);
+        locations.forEach(location -> location.setDistanceMatrix(matrix));
+        // a is cheaper on the first route by 6, b by 2, but the first route only has room for one of them
+        Customer b = new Customer(1, locations.get(3), 1, 0, 0, 1000);
+        Customer a = new Customer(2, locations.get(2), 1, 0, 0, 1000);
+        Vehicle first = new Vehicle(1L, 1, new Depot(1L, locations.get(0)), 0);
+        Vehicle second = new Vehicle(2L, 10, new Depot(2L, locations.get(1)), 0);
+        List<Vehicle> usedVehicles = new ArrayList<>(List.of(first, second));
+
+        List<Customer> customers = List.of(b, a);
+        new RegretInsertion(2, TimeWindowCompatibility.of(customers), customers).insertAll(usedVehicles, List.<Vehicle> of().iterator());
+
+        assertThat(first.getCustomerList()).containsExactly(a);
+        assertThat(second.getCustomerList()).containsExactly(b);
+    }
+
+    @Test
+    void insertsEveryCustomerFeasiblyOnce() {
+        VehicleRoutingSolution problem = TestProblems.problem(60);
+        List<Vehicle> usedVehicles = new ArrayList<>();
+
+        new RegretInsertion(3, problem.getTimeWindowCompatibility(), problem.getCustomerList()).insertAll(usedVehicles,
+                problem.getVehicleList().iterator());
+
+        List<Customer> routed = usedVehicles.stream().flatMap(vehicle -> vehicle.getCustomerList().stream()).collect(Collectors.toList());
+        assertThat(routed).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(problem.getCustomerList());
+        assertThat(usedVehicles).allSatisfy(vehicle -> {
+            assertThat(vehicle.isServiceTimeViolated()).isFalse();
+            assertThat(vehicle.getTotalDemand()).isLessThanOrEqualTo(vehicle.getCapacity());
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RouteSetHistoryTest {
+
+    private static RouteSet routeSet(int[] successors, int[] predecessors, long fingerprint) {
+        return new RouteSet(successors, predecessors, fingerprint, fingerprint);
+    }
+
+    @Test
+    void currentRouteSetsAreComparedExactly() {
+        RouteSetHistory history = new RouteSetHistory(10);
+        RouteSet a = routeSet(new int[] { 1, Solution.DEPOT }, new int[] { Solution.DEPOT, 0 }, 42L);
+        RouteSet b = routeSet(new int[] { Solution.DEPOT, 0 }, new int[] { 1, Solution.DEPOT }, 42L);
+
+        assertThat(history.add(a)).isTrue();
+        assertThat(history.add(a)).isFalse();
+        assertThat(history.contains(b)).isFalse();
+        assertThat(history.add(b)).isTrue();
+
+        history.remove(b);
+        assertThat(history.contains(b)).isFalse();
+        assertThat(history.contains(a)).isTrue();
+    }
+
+    @Test
+    void agedRouteSetsAreComparedByFingerprintAndForgottenOldestFirst() {
+        RouteSetHistory history = new RouteSetHistory(2);
+        RouteSet a = routeSet(new int[] { 1, Solution.DEPOT }, new int[] { Solution.DEPOT, 0 }, 1L);
+        RouteSet b = routeSet(new int[] { Solution.DEPOT, 0 }, new int[] { 1, Solution.DEPOT }, 2L);
+        RouteSet c = routeSet(new int[] { Solution.DEPOT, Solution.DEPOT }, new int[] { Solution.DEPOT, Solution.DEPOT }, 3L);
+        history.add(a);
+        history.age();
+        history.add(b);
+        history.add(c);
+        history.age();
+
+        assertThat(history.contains(a)).isFalse();
+        assertThat(history.contains(b)).isTrue();
+        assertThat(history.contains(routeSet(new int[] { Solution.UNROUTED, Solution.UNROUTED },
+                new int[] { Solution.UNROUTED, Solution.UNROUTED }, 3L))).isTrue();
+
+        history.remove(b);
+        assertThat(history.add(b)).isTrue();
+    }
+}
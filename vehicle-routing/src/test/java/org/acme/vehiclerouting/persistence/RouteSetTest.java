@@ -0,0 +1,67 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+
+class RouteSetTest {
+
+    private static VehicleRoutingSolution solution(VehicleRoutingSolution problem, List<List<Integer>> routes) {
+        VehicleRoutingSolution copy = new VehicleRoutingSolution("copy", problem, false);
+        List<Customer> customers = problem.getCustomerList();
+        for (int r = 0; r < routes.size(); r++) {
+            for (int index : routes.get(r)) {
+                copy.getVehicleList().get(r).addCustomer(customers.get(index));
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    void vehiclesAndRouteOrderDoNotMatter() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        RouteSet routes = RouteSet.of(solution(problem, List.of(List.of(0, 1, 2), List.of(3, 4))));
+
+        assertThat(RouteSet.of(solution(problem, List.of(List.of(), List.of(3, 4), List.of(), List.of(0, 1, 2))))).isEqualTo(routes)
+                .hasSameHashCodeAs(routes);
+        assertThat(RouteSet.of(solution(problem, List.of(List.of(0, 1, 2), List.of(4, 3))))).isNotEqualTo(routes);
+        assertThat(RouteSet.of(solution(problem, List.of(List.of(0, 1), List.of(2, 3, 4))))).isNotEqualTo(routes);
+        assertThat(RouteSet.of(solution(problem, List.of(List.of(0, 1, 2))))).isNotEqualTo(routes);
+    }
+
+    @Test
+    void chainedRoutesHaveTheFingerprintOfTheSolution() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        ArcChainer chainer = new ArcChainer(problem.getCustomerList().size());
+        // the route ends are not chained to the depot explicitly
+        chainer.add(1, 2);
+        chainer.add(Solution.DEPOT, 3);
+        chainer.add(0, 1);
+        chainer.add(3, 4);
+
+        RouteSet routes = RouteSet.of(solution(problem, List.of(List.of(3, 4), List.of(0, 1, 2))));
+        assertThat(chainer.getRouteSet()).isEqualTo(routes).hasSameHashCodeAs(routes);
+        assertThat(RouteSet.of(routes.getSuccessors(), routes.getPredecessors())).isEqualTo(routes);
+    }
+
+    @Test
+    void equalFingerprintsOfDifferentRoutesAreNotEqual() {
+        RouteSet a = new RouteSet(new int[] { 1, Solution.DEPOT }, new int[] { Solution.DEPOT, 0 }, 42L, 7L);
+        RouteSet b = new RouteSet(new int[] { Solution.DEPOT, 0 }, new int[] { 1, Solution.DEPOT }, 42L, 7L);
+
+        assertThat(a).hasSameHashCodeAs(b).isNotEqualTo(b);
+    }
+
+    @Test
+    void emptyRoutes() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+
+        assertThat(RouteSet.of(solution(problem, List.of())).isEmpty()).isTrue();
+        assertThat(new ArcChainer(3).getRouteSet().isEmpty()).isTrue();
+        assertThat(RouteSet.of(solution(problem, List.of(List.of(5)))).isEmpty()).isFalse();
+    }
+}
@@ -0,0 +1,46 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+
+class SolutionTest {
+
+    private static Solution solution(VehicleRoutingSolution problem, List<List<Integer>> routes) {
+        VehicleRoutingSolution copy = new VehicleRoutingSolution("copy", problem, false);
+        List<Customer> customers = problem.getCustomerList();
+        for (int r = 0; r < routes.size(); r++) {
+            for (int index : routes.get(r)) {
+                copy.getVehicleList().get(r).addCustomer(customers.get(index));
+            }
+        }
+        return new Solution(copy, 0);
+    }
+
+    @Test
+    void successorsAndPredecessors() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        Solution solution = solution(problem, List.of(List.of(0, 1, 2), List.of(3)));
+
+        assertThat(solution.getSuccessors()).startsWith(1, 2, Solution.DEPOT, Solution.DEPOT, Solution.UNROUTED);
+        assertThat(solution.getPredecessors()).startsWith(Solution.DEPOT, 0, 1, Solution.DEPOT, Solution.UNROUTED);
+    }
+
+    @Test
+    void noCommonArcsDoesNotChangeEitherSolution() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        Solution a = solution(problem, List.of(List.of(0, 1, 2), List.of(3, 4)));
+        Solution b = solution(problem, List.of(List.of(0, 1), List.of(2, 3, 4)));
+
+        // depot-0, 0-1, 3-4, 4-depot
+        assertThat(a.noCommonArcs(b)).isEqualTo(4);
+        assertThat(b.noCommonArcs(a)).isEqualTo(4);
+        assertThat(a.noCommonArcs(b)).isEqualTo(4);
+        // depot-0, 0-1, 1-2, 2-depot, depot-3, 3-4, 4-depot
+        assertThat(a.noCommonArcs(a)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,78 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+
+class SubsetGeneratorTest {
+
+    // the previous set based implementation
+    private static Set<Set<Solution>> materializedSubsets(List<Solution> refSet, int iteration) {
+        Set<Set<Solution>> pairs = new HashSet<>();
+        for (int i = 0; i < refSet.size(); i++) {
+            for (int j = i + 1; j < refSet.size(); j++) {
+                if (refSet.get(i).getLastUpdate() < iteration || refSet.get(j).getLastUpdate() < iteration) {
+                    pairs.add(Set.of(refSet.get(i), refSet.get(j)));
+                }
+            }
+        }
+        Set<Set<Solution>> triples = withBestOutside(pairs, refSet);
+        Set<Set<Solution>> quadruples = withBestOutside(triples, refSet);
+        Set<Set<Solution>> all = new HashSet<>(pairs);
+        all.addAll(triples);
+        all.addAll(quadruples);
+        return all;
+    }
+
+    private static Set<Set<Solution>> withBestOutside(Set<Set<Solution>> subsets, List<Solution> refSet) {
+        Set<Set<Solution>> larger = new HashSet<>();
+        for (Set<Solution> subset : subsets) {
+            refSet.stream().filter(solution -> !subset.contains(solution)).findFirst().ifPresent(best -> {
+                Set<Solution> extended = new HashSet<>(subset);
+                extended.add(best);
+                larger.add(extended);
+            });
+        }
+        return larger;
+    }
+
+    @Test
+    void sameSubsetsAsMaterializedSets() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        Random random = new Random(0);
+        for (int size : new int[] { 2, 3, 4, 7, 20 }) {
+            for (int trial = 0; trial < 20; trial++) {
+                int iteration = 3;
+                List<Solution> refSet = IntStream.range(0, size).mapToObj(i -> new Solution(problem, random.nextBoolean() ? iteration : 1))
+                        .collect(Collectors.toList());
+
+                List<List<Solution>> generated = new SubsetGenerator(refSet, iteration)
+                        .subsets(EnumSet.of(SubsetType.PAIRS, SubsetType.TRIPLES, SubsetType.QUADRUPLES)).collect(Collectors.toList());
+
+                Set<Set<Solution>> generatedSets = generated.stream().map(Set::copyOf).collect(Collectors.toSet());
+                assertThat(generated).hasSameSizeAs(generatedSets);
+                assertThat(generatedSets).isEqualTo(materializedSubsets(refSet, iteration));
+            }
+        }
+    }
+
+    @Test
+    void subsetTypesAreSwitchable() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        List<Solution> refSet = IntStream.range(0, 7).mapToObj(i -> new Solution(problem, 0)).collect(Collectors.toList());
+        SubsetGenerator generator = new SubsetGenerator(refSet, 1);
+
+        assertThat(generator.subsets(EnumSet.of(SubsetType.PAIRS))).hasSize(21).allMatch(subset -> subset.size() == 2);
+        assertThat(generator.subsets(EnumSet.of(SubsetType.BEST_PREFIXES))).containsExactly(refSet.subList(0, 5), refSet.subList(0, 6), refSet);
+        assertThat(generator.subsets(EnumSet.noneOf(SubsetType.class))).isEmpty();
+    }
+}
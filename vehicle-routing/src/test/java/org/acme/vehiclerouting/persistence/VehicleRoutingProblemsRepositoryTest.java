@@ -0,0 +1,25 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class VehicleRoutingProblemsRepositoryTest {
+
+    @Test
+    void oneRepositoryPerProblem() {
+        VehicleRoutingProblemsRepository problems = new VehicleRoutingProblemsRepository();
+        VehicleRoutingSolutionsRepository north = problems.create("north").orElseThrow();
+        VehicleRoutingSolutionsRepository south = problems.create("south").orElseThrow();
+
+        assertThat(north).isNotSameAs(south);
+        assertThat(problems.create("north")).isEmpty();
+        assertThat(problems.get("north")).containsSame(north);
+        assertThat(problems.getProblemIds()).containsExactly("north", "south");
+
+        assertThat(problems.remove("north")).isTrue();
+        assertThat(problems.remove("north")).isFalse();
+        assertThat(problems.get("north")).isEmpty();
+        assertThat(problems.create("north")).get().isNotSameAs(north);
+    }
+}
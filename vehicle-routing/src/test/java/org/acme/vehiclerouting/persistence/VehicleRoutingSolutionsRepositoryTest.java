@@ -0,0 +1,256 @@
+package org.acme.vehiclerouting.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.acme.vehiclerouting.bootstrap.TestProblems;
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+class VehicleRoutingSolutionsRepositoryTest {
+
+    // scores like the solver, with the shipped solver configuration
+    private static final SolutionManager<VehicleRoutingSolution, HardSoftLongScore> SOLUTION_MANAGER = SolutionManager.create(
+            SolverFactory.create(SolverConfig.createFromXmlResource("solverConfig.xml").withSolutionClass(VehicleRoutingSolution.class)
+                    .withEntityClasses(Vehicle.class)));
+
+    // quadratic reference: scan all remaining candidates for the smallest similarity after every pick
+    private static List<Solution> selectByScanning(List<Solution> refSet, List<Solution> candidates, int refSetSize,
+            ToIntBiFunction<Solution, Solution> similarity) {
+        List<Solution> selected = new ArrayList<>(refSet);
+        int[] similarities = candidates.stream().mapToInt(c -> refSet.stream().mapToInt(r -> similarity.applyAsInt(c, r)).max().orElse(0)).toArray();
+        boolean[] picked = new boolean[candidates.size()];
+        while (selected.size() < refSetSize && selected.size() - refSet.size() < candidates.size()) {
+            int best = -1;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (!picked[i] && (best < 0 || similarities[i] < similarities[best])) {
+                    best = i;
+                }
+            }
+            picked[best] = true;
+            Solution pick = candidates.get(best);
+            selected.add(pick);
+            for (int i = 0; i < candidates.size(); i++) {
+                similarities[i] = Math.max(similarities[i], similarity.applyAsInt(candidates.get(i), pick));
+            }
+        }
+        return selected;
+    }
+
+    @Test
+    void heapSelectionMatchesScanning() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        List<Solution> solutions = IntStream.range(0, 300).mapToObj(i -> new Solution(problem, 0)).collect(Collectors.toList());
+        Random random = new Random(0);
+        // few distinct values, so that there are many ties
+        int[][] matrix = new int[solutions.size()][solutions.size()];
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < i; j++) {
+                matrix[i][j] = matrix[j][i] = random.nextInt(6);
+            }
+        }
+        Map<Solution, Integer> index = new HashMap<>();
+        IntStream.range(0, solutions.size()).forEach(i -> index.put(solutions.get(i), i));
+        ToIntBiFunction<Solution, Solution> similarity = (a, b) -> matrix[index.get(a)][index.get(b)];
+
+        for (int refSetStart : new int[] { 0, 1, 10 }) {
+            List<Solution> refSet = solutions.subList(0, refSetStart);
+            List<Solution> candidates = solutions.subList(refSetStart, solutions.size());
+            assertThat(VehicleRoutingSolutionsRepository.selectDiverseSolutions(refSet, candidates, 20, similarity))
+                    .containsExactlyElementsOf(selectByScanning(refSet, candidates, 20, similarity));
+        }
+    }
+
+    @Test
+    void similarityMatrixComparesEachPairOnce() {
+        VehicleRoutingSolution problem = VehicleRoutingSolution.empty();
+        AtomicInteger comparisons = new AtomicInteger();
+        Solution a = new Solution(problem, 0) {
+            @Override
+            public int noCommonArcs(Solution b) {
+                comparisons.incrementAndGet();
+                return super.noCommonArcs(b);
+            }
+        };
+        Solution b = new Solution(problem, 0);
+        Solution c = new Solution(problem, 0);
+        SimilarityMatrix matrix = new SimilarityMatrix();
+
+        matrix.get(a, b);
+        matrix.get(b, a);
+        assertThat(comparisons.get()).isEqualTo(1);
+
+        // new routes invalidate the pair
+        a.setVehicleRoutingSolution(problem);
+        matrix.get(b, a);
+        assertThat(comparisons.get()).isEqualTo(2);
+
+        matrix.get(b, c);
+        matrix.retain(List.of(a, b));
+        assertThat(matrix.size()).isEqualTo(1);
+    }
+
+    @Test
+    void similaritiesOfRetainedMembersAreNotRecomputed() {
+        List<VehicleRoutingSolution> population = TestProblems.population(60, 30);
+        Set<Set<Solution>> compared = new HashSet<>();
+        VehicleRoutingSolutionsRepository repository = new VehicleRoutingSolutionsRepository(new SimilarityMatrix((a, b) -> {
+            assertThat(compared.add(Set.of(a, b))).as("compared again").isTrue();
+            return a.noCommonArcs(b);
+        }));
+        repository.setRefSetSize(10);
+        repository.setRefSetDivisionFactor(2.0);
+        repository.addAll(population.subList(0, 20));
+        repository.updateRefSet();
+        int firstUpdate = compared.size();
+        assertThat(firstUpdate).isPositive();
+
+        // the same members are selected from again
+        repository.updateRefSet();
+        assertThat(compared).hasSize(firstUpdate);
+
+        // new solutions are compared, the retained pairs are not compared again
+        repository.addAll(population.subList(20, 30));
+        repository.updateRefSet();
+        assertThat(compared).hasSizeGreaterThan(firstUpdate);
+    }
+
+    @Test
+    void combinationDoesNotDependOnThreadCount() throws Exception {
+        List<VehicleRoutingSolution> initialSolutions = TestProblems.population(60, 8);
+
+        List<String> singleThreaded = combineInPool(1, initialSolutions);
+        List<String> multiThreaded = combineInPool(4, initialSolutions);
+
+        assertThat(singleThreaded).isNotEmpty();
+        assertThat(multiThreaded).isEqualTo(singleThreaded);
+    }
+
+    @Test
+    void sameRoutesAreOnlyAddedAndCombinedOnce() {
+        List<VehicleRoutingSolution> initialSolutions = TestProblems.population(60, 4);
+        VehicleRoutingSolutionsRepository repository = new VehicleRoutingSolutionsRepository();
+        repository.addAll(initialSolutions);
+        // same routes on other vehicles
+        VehicleRoutingSolution reversedVehicles = new VehicleRoutingSolution("reversed", initialSolutions.get(0), false);
+        for (int i = 0; i < reversedVehicles.getVehicleList().size(); i++) {
+            List<Vehicle> vehicles = initialSolutions.get(0).getVehicleList();
+            reversedVehicles.getVehicleList().get(i).replaceCustomers(vehicles.get(vehicles.size() - 1 - i).getCustomerList());
+        }
+        repository.add(reversedVehicles);
+        assertThat(repository.getSolutions()).hasSize(initialSolutions.size());
+
+        repository.incrementIteration();
+        List<Solution> solutions = List.copyOf(repository.getSolutions());
+        List<List<Solution>> pairs = IntStream.range(1, solutions.size()).mapToObj(i -> List.of(solutions.get(0), solutions.get(i)))
+                .collect(Collectors.toList());
+
+        Set<Solution> combined = repository.combineSolutions(pairs.stream());
+        assertThat(combined).isNotEmpty();
+        assertThat(repository.combineSolutions(pairs.stream())).isEmpty();
+
+        // combinations that were never solved may be generated again
+        repository.removeAll(combined);
+        assertThat(repository.combineSolutions(pairs.stream())).hasSameSizeAs(combined);
+    }
+
+    @Test
+    void steadyStateUpdateReplacesWorstMember() {
+        List<VehicleRoutingSolution> solutions = TestProblems.population(60, 6);
+        VehicleRoutingSolutionsRepository repository = new VehicleRoutingSolutionsRepository();
+        repository.setRefSetSize(4);
+        repository.addAll(solutions.subList(0, 4));
+        List<Solution> refSet = List.copyOf(repository.getSolutions());
+        Solution worst = refSet.stream().min(Comparator.comparing(solution -> solution.getVehicleRoutingSolution().getScore())).get();
+        int iteration = repository.getIteration();
+
+        Solution better = new Solution(solutions.get(4), 0);
+        better.getVehicleRoutingSolution().setScore(HardSoftLongScore.ofSoft(1));
+        assertThat(repository.updateRefSet(better)).isTrue();
+        assertThat(repository.getSolutions()).hasSize(4).startsWith(better).doesNotContain(worst);
+        assertThat(repository.getIteration()).isEqualTo(iteration + 1);
+
+        Solution worse = new Solution(solutions.get(5), 0);
+        worse.getVehicleRoutingSolution().setScore(HardSoftLongScore.ofSoft(Long.MIN_VALUE));
+        assertThat(repository.updateRefSet(worse)).isFalse();
+        Solution survivor = refSet.stream().filter(solution -> solution != worst).findFirst().get();
+        Solution sameRoutes = new Solution(new VehicleRoutingSolution("same", survivor.getVehicleRoutingSolution(), true), 0);
+        sameRoutes.getVehicleRoutingSolution().setScore(HardSoftLongScore.ofSoft(2));
+        assertThat(repository.updateRefSet(sameRoutes)).isFalse();
+
+        // every subset with better contains another member, whose turn comes later
+        Set<Solution> pending = repository.getSolutions().stream().filter(member -> member != better).collect(Collectors.toSet());
+        assertThat(repository.generateNewSolutions(better, pending)).isEmpty();
+        assertThat(repository.generateNewSolutions(better)).isNotEmpty().allSatisfy(solution -> assertThat(solution.getVehicleRoutingSolution().getName())
+                .contains("(" + better.getVehicleRoutingSolution().getName() + ")"));
+        assertThat(repository.getSolutions()).hasSize(4);
+    }
+
+    @Test
+    void combinedSolutionsAreScoredAndScreenedAgainstWorstSolution() {
+        List<VehicleRoutingSolution> initialSolutions = TestProblems.population(60, 8);
+        initialSolutions.forEach(solution -> solution.setScore(calculateScore(solution)));
+        HardSoftLongScore worstScore = initialSolutions.stream().map(VehicleRoutingSolution::getScore).min(Comparator.naturalOrder()).get();
+
+        VehicleRoutingSolutionsRepository unscreened = new VehicleRoutingSolutionsRepository();
+        unscreened.setScoreCalculator(VehicleRoutingSolutionsRepositoryTest::calculateScore);
+        unscreened.addAll(initialSolutions);
+        unscreened.incrementIteration();
+        List<Solution> all = List.copyOf(unscreened.generateNewSolutions());
+        assertThat(all).allSatisfy(solution -> assertThat(solution.getVehicleRoutingSolution().getScore())
+                .isEqualTo(calculateScore(solution.getVehicleRoutingSolution())));
+
+        VehicleRoutingSolutionsRepository screened = new VehicleRoutingSolutionsRepository();
+        screened.setScreeningTolerance(0.0);
+        screened.setScoreCalculator(VehicleRoutingSolutionsRepositoryTest::calculateScore);
+        screened.addAll(initialSolutions);
+        screened.incrementIteration();
+        List<String> kept = screened.generateNewSolutions().stream().map(solution -> solution.getVehicleRoutingSolution().getName())
+                .collect(Collectors.toList());
+
+        List<String> expected = all.stream().filter(solution -> solution.getVehicleRoutingSolution().getScore().compareTo(worstScore) >= 0)
+                .map(solution -> solution.getVehicleRoutingSolution().getName()).collect(Collectors.toList());
+        assertThat(expected).isNotEmpty().hasSizeLessThan(all.size());
+        assertThat(kept).isEqualTo(expected);
+        assertThat(screened.getScreenedOutCount()).isEqualTo(all.size() - expected.size());
+    }
+
+    private static HardSoftLongScore calculateScore(VehicleRoutingSolution solution) {
+        return SOLUTION_MANAGER.update(solution);
+    }
+
+    // parallel streams started from a fork join pool run in that pool
+    private static List<String> combineInPool(int parallelism, List<VehicleRoutingSolution> initialSolutions) throws Exception {
+        VehicleRoutingSolutionsRepository repository = new VehicleRoutingSolutionsRepository();
+        repository.addAll(initialSolutions);
+        repository.incrementIteration();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> repository.generateNewSolutions().stream()
+                    .map(solution -> solution.getVehicleRoutingSolution().getName() + solution.getVehicleRoutingSolution().getVehicleList().stream()
+                            .map(Vehicle::getCustomerIds).collect(Collectors.toList()))
+                    .collect(Collectors.toList())).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.acme.vehiclerouting.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.acme.vehiclerouting.persistence.Solution;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+
+class AdmissionQueueTest {
+
+    private static Solution combined(long parentSoftScore) {
+        return new Solution(VehicleRoutingSolution.empty(), 0, HardSoftLongScore.of(0, parentSoftScore));
+    }
+
+    @Test
+    void bestParentsFirstAndWorstDroppedWhenFull() {
+        Solution initial = new Solution(VehicleRoutingSolution.empty(), 0);
+        Solution good = combined(-100);
+        Solution medium = combined(-200);
+        Solution mediumLater = combined(-200);
+        Solution bad = combined(-300);
+        AdmissionQueue admission = new AdmissionQueue(4);
+
+        assertThat(admission.addAll(List.of(bad, medium, initial))).isEmpty();
+        assertThat(admission.isFull()).isFalse();
+        assertThat(admission.addAll(List.of(mediumLater, good))).containsExactly(bad);
+        assertThat(admission.isFull()).isTrue();
+
+        assertThat(admission.poll()).isSameAs(initial);
+        assertThat(admission.poll()).isSameAs(good);
+        assertThat(admission.poll()).isSameAs(medium);
+        assertThat(admission.poll()).isSameAs(mediumLater);
+        assertThat(admission.poll()).isNull();
+    }
+
+    @Test
+    void dominatedSolutionsAreDropped() {
+        Solution good = combined(-100);
+        Solution medium = combined(-200);
+        Solution bad = combined(-300);
+        AdmissionQueue admission = new AdmissionQueue(10);
+        admission.addAll(List.of(good, medium, bad));
+
+        assertThat(admission.dropDominated(HardSoftLongScore.of(0, -200))).containsExactly(bad);
+        assertThat(admission.size()).isEqualTo(2);
+        assertThat(admission.poll()).isSameAs(good);
+    }
+}
@@ -0,0 +1,50 @@
+package org.acme.vehiclerouting.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+
+class ImprovementSchedulerTest {
+
+    @Test
+    void budgetShrinksWithGapToWorstMember() {
+        ImprovementScheduler scheduler = new ImprovementScheduler(100, 1100, 0.1, 0.25, problemId -> {
+        });
+        HardSoftLongScore worst = HardSoftLongScore.of(0, -1000);
+
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(0, -1000), null)).isEqualTo(1100);
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(0, -900), worst)).isEqualTo(1100);
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(0, -1000), worst)).isEqualTo(1100);
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(0, -1050), worst)).isEqualTo(600);
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(0, -2000), worst)).isEqualTo(100);
+        assertThat(scheduler.getSpentLimitMillis(HardSoftLongScore.of(-1, -500), worst)).isEqualTo(100);
+        assertThat(scheduler.getUnimprovedSpentLimitMillis(1100)).isEqualTo(275);
+        assertThat(scheduler.getUnimprovedSpentLimitMillis(100)).isEqualTo(100);
+    }
+
+    @Test
+    void unimprovedJobIsTerminatedEarly() throws InterruptedException {
+        CountDownLatch terminated = new CountDownLatch(1);
+        ImprovementScheduler scheduler = new ImprovementScheduler(50, 60_000, 0.1, 0.001, problemId -> terminated.countDown());
+
+        scheduler.start(1L, 60_000);
+        scheduler.improved(1L);
+
+        assertThat(terminated.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void finishedJobIsNotTerminated() throws InterruptedException {
+        CountDownLatch terminated = new CountDownLatch(1);
+        ImprovementScheduler scheduler = new ImprovementScheduler(50, 100, 0.1, 1.0, problemId -> terminated.countDown());
+
+        scheduler.start(1L, 100);
+        scheduler.finished(1L);
+
+        assertThat(terminated.await(300, TimeUnit.MILLISECONDS)).isFalse();
+    }
+}
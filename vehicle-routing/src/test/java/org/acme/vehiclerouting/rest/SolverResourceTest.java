@@ -2,6 +2,9 @@ package org.acme.vehiclerouting.rest;
 
 import static io.restassured.RestAssured.given;
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -39,4 +42,149 @@ public class SolverResourceTest {
                 .jsonPath().get("solution.score");
         assertTrue(HardSoftScore.parseScore(scoreString).isFeasible());
     }
+
+    private static final String SMALL_PROBLEM = "{\"customerCount\": 10, \"vehicleCount\": 8, \"populationSize\": 4}";
+
+    @Test
+    public void submitQuerySolveStopAndDeleteProblem() {
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .body(SMALL_PROBLEM)
+                .post("/vrp/problems/lifecycle")
+                .then()
+                .statusCode(204);
+
+        given()
+                .when()
+                .get("/vrp/problems")
+                .then()
+                .statusCode(200)
+                .body("", hasItem("lifecycle"));
+        given()
+                .when()
+                .get("/vrp/problems/lifecycle/status")
+                .then()
+                .statusCode(200)
+                .body("solution.customerList", hasSize(10));
+
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .post("/vrp/problems/lifecycle/stopSolving")
+                .then()
+                .statusCode(204);
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .queryParam("steadyState", true)
+                .post("/vrp/problems/lifecycle/solve")
+                .then()
+                .statusCode(204);
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .post("/vrp/problems/lifecycle/stopSolving")
+                .then()
+                .statusCode(204);
+
+        given()
+                .when()
+                .delete("/vrp/problems/lifecycle")
+                .then()
+                .statusCode(204);
+        given()
+                .when()
+                .get("/vrp/problems")
+                .then()
+                .statusCode(200)
+                .body("", not(hasItem("lifecycle")));
+        given()
+                .when()
+                .get("/vrp/problems/lifecycle/status")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    public void unknownProblemIsNotFound() {
+        given()
+                .when()
+                .get("/vrp/problems/unknown/status")
+                .then()
+                .statusCode(404);
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .post("/vrp/problems/unknown/solve")
+                .then()
+                .statusCode(404);
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .post("/vrp/problems/unknown/stopSolving")
+                .then()
+                .statusCode(404);
+        given()
+                .when()
+                .delete("/vrp/problems/unknown")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    public void duplicateProblemIsConflict() {
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .body(SMALL_PROBLEM)
+                .post("/vrp/problems/duplicate")
+                .then()
+                .statusCode(204);
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .body(SMALL_PROBLEM)
+                .post("/vrp/problems/duplicate")
+                .then()
+                .statusCode(409);
+
+        given()
+                .when()
+                .delete("/vrp/problems/duplicate")
+                .then()
+                .statusCode(204);
+    }
+
+    @Test
+    public void invalidProblemIsBadRequest() {
+        given()
+                .when()
+                .contentType(ContentType.JSON)
+                .body("{\"southWestCorner\": [49.43069]}")
+                .post("/vrp/problems/invalid")
+                .then()
+                .statusCode(400);
+        given()
+                .when()
+                .get("/vrp/problems")
+                .then()
+                .statusCode(200)
+                .body("", not(hasItem("invalid")));
+    }
+
+    @Test
+    public void demoProblemCannotBeDeleted() {
+        given()
+                .when()
+                .delete("/vrp/problems/demo")
+                .then()
+                .statusCode(403);
+        given()
+                .when()
+                .get("/vrp/problems")
+                .then()
+                .statusCode(200)
+                .body("", hasItem("demo"));
+    }
 }
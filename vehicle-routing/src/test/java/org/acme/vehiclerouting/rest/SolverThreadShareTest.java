@@ -0,0 +1,47 @@
+package org.acme.vehiclerouting.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SolverThreadShareTest {
+
+    @Test
+    void threadsAreSharedEvenlyAndAtLeastOneEach() {
+        SolverThreadShare share = new SolverThreadShare(8);
+        Object first = new Object();
+        assertThat(share.get(first)).isEqualTo(8);
+
+        share.join(first);
+        assertThat(share.get(first)).isEqualTo(8);
+        List<Object> others = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            others.add(new Object());
+            share.join(others.get(i));
+        }
+        assertThat(share.get(first)).isEqualTo(2);
+        for (int i = 0; i < 9; i++) {
+            others.add(new Object());
+            share.join(others.get(others.size() - 1));
+        }
+        assertThat(share.get(first)).isEqualTo(1);
+        assertThat(others).allSatisfy(search -> assertThat(share.get(search)).isEqualTo(1));
+
+        others.forEach(share::leave);
+        assertThat(share.get(first)).isEqualTo(8);
+    }
+
+    @Test
+    void leftOverThreadsGoToTheFirstSearches() {
+        SolverThreadShare share = new SolverThreadShare(8);
+        List<Object> searches = List.of(new Object(), new Object(), new Object());
+        searches.forEach(share::join);
+        assertThat(searches).extracting(share::get).containsExactly(3, 3, 2);
+
+        share.leave(searches.get(0));
+        assertThat(share.get(searches.get(1)) + share.get(searches.get(2))).isEqualTo(8);
+    }
+}
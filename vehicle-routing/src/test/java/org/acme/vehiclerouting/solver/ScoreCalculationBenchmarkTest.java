@@ -0,0 +1,63 @@
+package org.acme.vehiclerouting.solver;
+
+import org.acme.vehiclerouting.bootstrap.SequentialInsertion;
+import org.acme.vehiclerouting.bootstrap.TestProblems;
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.stream.ConstraintStreamImplType;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+
+/**
+ * Score calculation speed of the constraint streams and the incremental score calculator. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ScoreCalculationBenchmarkTest {
+
+    private static final long WARMUP_SECONDS = 5L;
+    private static final long MEASURED_SECONDS = 10L;
+
+    private static VehicleRoutingSolution initializedSolution(int customerCount) {
+        VehicleRoutingSolution problem = TestProblems.problem(customerCount, customerCount / 2, 2);
+        return SequentialInsertion.solve(problem);
+    }
+
+    private static long scoreCalculationSpeed(ScoreDirectorFactoryConfig scoreDirectorFactoryConfig, int customerCount, long seconds) {
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VehicleRoutingSolution.class)
+                .withEntityClasses(Vehicle.class)
+                .withScoreDirectorFactory(scoreDirectorFactoryConfig)
+                .withEnvironmentMode(EnvironmentMode.REPRODUCIBLE)
+                .withPhases(new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.LATE_ACCEPTANCE)
+                        .withTerminationConfig(new TerminationConfig().withSecondsSpentLimit(seconds)));
+        Solver<VehicleRoutingSolution> solver = SolverFactory.<VehicleRoutingSolution> create(solverConfig).buildSolver();
+        solver.solve(initializedSolution(customerCount));
+        return ((DefaultSolver<VehicleRoutingSolution>) solver).getSolverScope().getScoreCalculationCount() / seconds;
+    }
+
+    @Test
+    void scoreCalculationSpeed() {
+        ScoreDirectorFactoryConfig constraintStreams = new ScoreDirectorFactoryConfig()
+                .withConstraintProviderClass(VehicleRoutingConstraintProvider.class)
+                .withConstraintStreamImplType(ConstraintStreamImplType.BAVET);
+        ScoreDirectorFactoryConfig incremental = new ScoreDirectorFactoryConfig()
+                .withIncrementalScoreCalculatorClass(VehicleRoutingIncrementalScoreCalculator.class);
+        scoreCalculationSpeed(constraintStreams, 100, WARMUP_SECONDS);
+        scoreCalculationSpeed(incremental, 100, WARMUP_SECONDS);
+        for (int customerCount : new int[] { 100, 200, 400 }) {
+            System.out.printf("%5d customers: constraint streams %8d, incremental %8d score calculations per second%n", customerCount,
+                    scoreCalculationSpeed(constraintStreams, customerCount, MEASURED_SECONDS),
+                    scoreCalculationSpeed(incremental, customerCount, MEASURED_SECONDS));
+        }
+    }
+}
@@ -66,4 +66,28 @@ class VehicleRoutingConstraintProviderTest {
                 .given(vehicleA, customer1, customer2)
                 .penalizesBy((4 + 5 + 3) * EuclideanDistanceCalculator.METERS_PER_DEGREE);
     }
+
+    @Test
+    void unroutedCustomerHasNoDistance() {
+        Vehicle vehicleA = new Vehicle(1L, 100, new Depot(1L, location1), 0);
+        Customer customer1 = new Customer(2L, location2, 80, 1, 0, 1000000);
+
+        constraintVerifier.verifyThat(VehicleRoutingConstraintProvider::totalDistance)
+                .given(vehicleA, customer1)
+                .penalizesBy(0);
+    }
+
+    @Test
+    void arrivalAfterEndOfServiceWindow() {
+        Vehicle vehicleA = new Vehicle(1L, 100, new Depot(1L, location1), 0);
+        long firstLeg = 4 * EuclideanDistanceCalculator.METERS_PER_DEGREE;
+        Customer customer1 = new Customer(2L, location2, 10, 1, 0, (int) firstLeg);
+        Customer customer2 = new Customer(3L, location3, 10, 1, 0, (int) firstLeg);
+        vehicleA.getCustomerList().add(customer1);
+        vehicleA.getCustomerList().add(customer2);
+
+        constraintVerifier.verifyThat(VehicleRoutingConstraintProvider::arrivalAfterEndOfServiceWindow)
+                .given(vehicleA, customer1, customer2)
+                .penalizesBy(1);
+    }
 }
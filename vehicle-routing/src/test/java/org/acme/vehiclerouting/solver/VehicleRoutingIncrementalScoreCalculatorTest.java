@@ -0,0 +1,67 @@
+package org.acme.vehiclerouting.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.acme.vehiclerouting.bootstrap.SequentialInsertion;
+import org.acme.vehiclerouting.bootstrap.TestProblems;
+import org.acme.vehiclerouting.domain.Customer;
+import org.acme.vehiclerouting.domain.Vehicle;
+import org.acme.vehiclerouting.domain.VehicleRoutingSolution;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.score.stream.ConstraintStreamImplType;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+
+class VehicleRoutingIncrementalScoreCalculatorTest {
+
+    private static VehicleRoutingSolution initializedSolution() {
+        VehicleRoutingSolution problem = TestProblems.problem(30);
+        return SequentialInsertion.solve(problem);
+    }
+
+    @Test
+    void matchesConstraintStreams() {
+        ScoreDirectorFactoryConfig constraintStreams = new ScoreDirectorFactoryConfig()
+                .withConstraintProviderClass(VehicleRoutingConstraintProvider.class)
+                .withConstraintStreamImplType(ConstraintStreamImplType.BAVET);
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VehicleRoutingSolution.class)
+                .withEntityClasses(Vehicle.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VehicleRoutingIncrementalScoreCalculator.class)
+                        // every incremental score is compared with the constraint streams
+                        .withAssertionScoreDirectorFactory(constraintStreams))
+                .withEnvironmentMode(EnvironmentMode.FULL_ASSERT)
+                .withPhases(new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.LATE_ACCEPTANCE)
+                        .withTerminationConfig(new TerminationConfig().withStepCountLimit(20)));
+
+        VehicleRoutingSolution best = SolverFactory.<VehicleRoutingSolution> create(solverConfig).buildSolver().solve(initializedSolution());
+
+        assertThat(best.getScore().isSolutionInitialized()).isTrue();
+    }
+
+    @Test
+    void constraintMatchTotalsAddUpToScore() {
+        VehicleRoutingSolution solution = initializedSolution();
+        // overload one vehicle so that every constraint has a match
+        Vehicle overloaded = solution.getVehicleList().get(0);
+        overloaded.setCapacity(1);
+
+        VehicleRoutingIncrementalScoreCalculator calculator = new VehicleRoutingIncrementalScoreCalculator();
+        calculator.resetWorkingSolution(solution, true);
+
+        HardSoftLongScore total = HardSoftLongScore.ZERO;
+        for (ConstraintMatchTotal<HardSoftLongScore> constraintMatchTotal : calculator.getConstraintMatchTotals()) {
+            total = total.add(constraintMatchTotal.getScore());
+        }
+        assertThat(total).isEqualTo(calculator.calculateScore());
+        assertThat(calculator.calculateScore().hardScore()).isNegative();
+    }
+}